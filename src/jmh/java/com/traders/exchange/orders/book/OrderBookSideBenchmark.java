@@ -0,0 +1,70 @@
+package com.traders.exchange.orders.book;
+
+import com.traders.exchange.domain.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw book operations without the service around them: insert throughput, amend (remove and
+ * re-add at another level) and consuming the top of book, at book depths from 10 to 1M.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderBookSideBenchmark {
+    private static final int LEVELS = 10_000;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int depth;
+
+    private OrderBookSide side;
+    private OrderNode[] resting;
+    private SplittableRandom random;
+    private long nextId;
+
+    @Setup(Level.Iteration)
+    public void fillBook() {
+        side = OrderBookSide.ascending();
+        resting = new OrderNode[depth];
+        random = new SplittableRandom(42);
+        for (int i = 0; i < depth; i++) {
+            resting[i] = side.add(order(++nextId, randomPrice()));
+        }
+    }
+
+    @Benchmark
+    public OrderNode insert() {
+        return side.add(order(++nextId, randomPrice()));
+    }
+
+    @Benchmark
+    public OrderNode amend() {
+        int index = random.nextInt(depth);
+        OrderNode node = resting[index];
+        side.remove(node);
+        resting[index] = side.add(node.order(), randomPrice());
+        return resting[index];
+    }
+
+    @Benchmark
+    public OrderNode consumeTop() {
+        // Keeps the depth constant: take the front order, put a new one at a random level
+        OrderNode front = side.front().head();
+        side.remove(front);
+        return side.add(order(++nextId, randomPrice()));
+    }
+
+    private double randomPrice() {
+        return 1000 + random.nextInt(LEVELS) * 0.05;
+    }
+
+    private static TradeResponse order(long transactionId, double askedPrice) {
+        TradeRequest request = new TradeRequest(1.0, OrderType.BUY, OrderCategory.LIMIT, 1L,
+                askedPrice, 0.0, 0.0, OrderValidity.REGULAR, transactionId);
+        return new TradeResponse(request, transactionId, "1333", false, askedPrice);
+    }
+}
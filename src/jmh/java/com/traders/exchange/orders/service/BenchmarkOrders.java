@@ -0,0 +1,56 @@
+package com.traders.exchange.orders.service;
+
+import com.traders.common.model.TradeOrderDetails;
+import com.traders.exchange.domain.*;
+
+import java.util.List;
+
+/**
+ * Fixtures shared by the matching benchmarks.
+ */
+final class BenchmarkOrders {
+    static final String INSTRUMENT = "1333";
+    // The only instrument the benchmarks touch, so it always gets the first index of a fresh registry
+    static final int INSTRUMENT_INDEX = 0;
+
+    private BenchmarkOrders() {}
+
+    static OrderMatchingService newService(int shards) {
+        MatchingConfig config = new MatchingConfig(shards, 0, 0, 0, 0, null, 0, 0, null, null);
+        InstrumentRegistry registry = new InstrumentRegistry();
+        registry.register(INSTRUMENT);
+        return new OrderMatchingService(new TransactionUpdateReporter(new NoOpTradeFeign(), config), config, registry);
+    }
+
+    /**
+     * Buy LIMIT order that fills once the best ask reaches its asked price.
+     */
+    static TradeResponse buyLimit(long transactionId, double askedPrice) {
+        TradeRequest request = new TradeRequest(1.0, OrderType.BUY, OrderCategory.LIMIT, 1L,
+                askedPrice, 0.0, 0.0, OrderValidity.REGULAR, transactionId);
+        return new TradeResponse(request, transactionId, INSTRUMENT, false, askedPrice - 1);
+    }
+
+    /**
+     * Stands in for the portfolio service so no HTTP call is made.
+     */
+    static final class NoOpTradeFeign implements TradeFeignService {
+        @Override
+        public List<TradeOrderDetails> addTradeTransaction(TradeRequest tradeRequest, String clientIp) {
+            return List.of();
+        }
+
+        @Override
+        public List<TradeOrderDetails> addTradeTransaction(Long userId, TradeRequest tradeRequest) {
+            return List.of();
+        }
+
+        @Override
+        public void updateTradeTransaction(TransactionUpdateRecord updateRecord) {
+        }
+
+        @Override
+        public void updateTradeTransactions(List<TransactionUpdateRecord> updateRecords) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.traders.exchange.orders.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matching hot path through {@link OrderMatchingService}: placement, a tick that fills the top
+ * order, a tick that fills nothing and an amend, each against a book of {@code depth} resting
+ * buy orders spread over 10,000 price levels above the tick price. The book is rebuilt for every
+ * iteration, so orders placed by one iteration do not deepen the next one's book.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderMatchingBenchmark {
+    private static final double TOP_PRICE = 1000.0;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int depth;
+
+    @Param({"0", "4"})
+    public int shards;
+
+    private OrderMatchingService service;
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong amends = new AtomicLong();
+    // Transaction id of the first order in the iteration's starting book
+    private long firstId;
+
+    @Setup(Level.Iteration)
+    public void fillBook() {
+        service = BenchmarkOrders.newService(shards);
+        firstId = nextId.get() + 1;
+        for (int i = 0; i < depth; i++) {
+            // Every resting order sits strictly above the price the benchmarks fill at
+            service.placeBuyOrder(BenchmarkOrders.buyLimit(nextId.incrementAndGet(), TOP_PRICE + 1 + (i % 10_000) * 0.05));
+        }
+        // Placement is asynchronous in sharded mode; a match pass waits for the shard to catch up
+        service.matchNow(BenchmarkOrders.INSTRUMENT_INDEX, 0, 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public void place() {
+        service.placeBuyOrder(BenchmarkOrders.buyLimit(nextId.incrementAndGet(), TOP_PRICE + 1 + (nextId.get() % 10_000) * 0.05));
+    }
+
+    @Benchmark
+    public void tickAndMatch() {
+        // The new order becomes the front of the book and is the only one the tick fills
+        service.placeBuyOrder(BenchmarkOrders.buyLimit(nextId.incrementAndGet(), TOP_PRICE));
+        service.matchNow(BenchmarkOrders.INSTRUMENT_INDEX, TOP_PRICE, TOP_PRICE);
+    }
+
+    @Benchmark
+    public void tickNoMatch() {
+        service.matchNow(BenchmarkOrders.INSTRUMENT_INDEX, TOP_PRICE - 1, TOP_PRICE - 1);
+    }
+
+    @Benchmark
+    public void amend(Blackhole blackhole) {
+        // Walks the starting book, each amend moving its order to a price it is not already at
+        long amend = amends.incrementAndGet();
+        long transactionId = firstId + (amend * 31) % depth;
+        blackhole.consume(service.updateOrderPrice(transactionId,
+                TOP_PRICE + 1 + ((transactionId + amend) % 10_000) * 0.05, TOP_PRICE));
+    }
+
+    /**
+     * Three threads placing orders while one thread ticks the same instrument.
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void mixedPlace() {
+        place();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedTick() {
+        tickAndMatch();
+    }
+}
@@ -7,9 +7,10 @@ import com.traders.common.model.MarketQuotes;
 import com.traders.common.properties.ConfigProperties;
 import com.traders.common.service.RedisService;
 import com.traders.exchange.domain.ExchangePort;
+import com.traders.exchange.domain.FeedMode;
 import com.traders.exchange.domain.OrderMatchingPort;
-import com.traders.exchange.domain.SubscriptionCommand;
 import com.traders.exchange.domain.TransactionCommand;
+import com.traders.exchange.domain.TransactionResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -26,17 +27,17 @@ public class ExchangeFacade {
     private static final Logger logger = LoggerFactory.getLogger(ExchangeFacade.class);
 
     private final Map<String, ExchangePort> exchangeAdapters;
-    private final CommandBus<SubscriptionCommand> subscriptionBus;
+    private final SubscriptionRegistry subscriptionRegistry;
     private final OrderMatchingPort orderMatchingPort;
     private final ConfigProperties configProperties;
     private final RedisService redisService;
 
-    public ExchangeFacade(List<ExchangePort> adapters, CommandBus<SubscriptionCommand> subscriptionBus,
+    public ExchangeFacade(List<ExchangePort> adapters, SubscriptionRegistry subscriptionRegistry,
                           OrderMatchingPort orderMatchingPort, ConfigProperties configProperties,
                           RedisService redisService) {
         this.exchangeAdapters = adapters.stream()
                 .collect(Collectors.toMap(adapter -> adapter.getClass().getSimpleName().replace("Adapter", ""), adapter -> adapter));
-        this.subscriptionBus = subscriptionBus;
+        this.subscriptionRegistry = subscriptionRegistry;
         this.orderMatchingPort = orderMatchingPort;
         this.configProperties = configProperties;
         this.redisService = redisService;
@@ -68,8 +69,8 @@ public class ExchangeFacade {
             @Override public String getTradingSymbol() { return d.getInstrumentName(); }
         }));
 
-        // Subscribe via WebSocket
-        subscriptionBus.dispatch(vendor, new SubscriptionCommand.Subscribe(instrumentInfoList));
+        // Hold via the registry; base instruments are the ones orders match against, so full depth
+        subscriptionRegistry.acquire(SubscriptionRegistry.BASE_HOLDER, instrumentInfoList, FeedMode.FULL);
         logger.info("Subscribed to {} instruments (base) for vendor: {}", instrumentInfoList.size(), vendor);
 
         // Store in Redis under a persistent key (no TTL for base subscriptions)
@@ -82,7 +83,9 @@ public class ExchangeFacade {
 
     /**
      * Fetches quotes via REST and manages WebSocket subscriptions for the configured vendor.
-     * Unsubscribes only previous getQuotes subscriptions for the user, leaving base subscriptions intact.
+     * The user's quote instruments replace the ones from their previous call; instruments no longer
+     * held by anyone are unsubscribed after a grace period, while base subscriptions stay held.
+     * A user who stops calling lets go of their quote instruments after the holder idle timeout.
      * @param instruments List of instruments to fetch quotes for.
      * @param userId Unique identifier for the user (e.g., from request header).
      * @return Map of instrument IDs to MarketQuotes.
@@ -98,31 +101,11 @@ public class ExchangeFacade {
         Map<String, MarketQuotes> quotes = exchangeAdapters.get(vendor).fetchQuotes(instruments);
         logger.info("Fetched {} quotes for user {} from vendor: {}", quotes.size(), userId, vendor);
 
-        // Manage WebSocket subscriptions (only for getQuotes, not base)
+        // Manage WebSocket subscriptions (only for getQuotes, not base); quotes are for display,
+        // so ticker packets are enough
         String redisKey = "user:" + userId + ":quotesSubscribedInstruments"; // Distinct key for getQuotes
-
-        // Get previous getQuotes subscriptions from Redis
-        Object previousValue = redisService.getValue(redisKey);
-        Set<String> previousSubscriptions = previousValue instanceof String
-                ? new HashSet<>(Arrays.asList(((String) previousValue).split(",")))
-                : new HashSet<>();
-
-        // Unsubscribe previous getQuotes instruments if they exist
-        if (!previousSubscriptions.isEmpty()) {
-            List<InstrumentInfo> toUnsubscribe = instruments.stream()
-                    .filter(instrument -> previousSubscriptions.contains(instrument.getInstrumentToken().toString()))
-                    .toList();
-            if (!toUnsubscribe.isEmpty()) {
-                //currently not unsubscribing
-               // subscriptionBus.dispatch(vendor, new SubscriptionCommand.Unsubscribe(toUnsubscribe));
-                logger.info("Unsubscribed {} getQuotes instruments for user {} from vendor: {}", toUnsubscribe.size(), userId, vendor);
-            }
-        }
-
-        // Subscribe new instruments
-        if(!instruments.isEmpty())
-            subscriptionBus.dispatch(vendor, new SubscriptionCommand.Subscribe(instruments));
-        logger.info("Subscribed {} instruments for user {} from vendor: {}", instruments.size(), userId, vendor);
+        subscriptionRegistry.replaceExpiring(quoteHolder(userId), instruments, FeedMode.TICKER);
+        logger.info("User {} now holds {} quote instruments for vendor: {}", userId, instruments.size(), vendor);
 
         // Update Redis with new getQuotes subscriptions
         String newSubscriptions = instruments.stream()
@@ -133,6 +116,16 @@ public class ExchangeFacade {
         return quotes;
     }
 
+    /**
+     * Releases the instruments held by the user's getQuotes calls straight away, without waiting
+     * for the holder idle timeout, e.g. when their session ends.
+     * @param userId Unique identifier for the user.
+     */
+    public void releaseQuotes(String userId) {
+        subscriptionRegistry.releaseAll(quoteHolder(userId));
+        logger.info("Released quote instruments for user {}", userId);
+    }
+
     /**
      * Fetches instruments from the configured vendor.
      * @return List of InstrumentDTO objects.
@@ -154,6 +147,18 @@ public class ExchangeFacade {
         logger.info("Placed order: {}", command);
     }
 
+    /**
+     * Places a batch of orders via the order matching service, e.g. when the gateway replays
+     * pending orders at session start.
+     * @param commands The TransactionCommands to execute.
+     * @return Accept/reject result per command, in the order given.
+     */
+    public List<TransactionResult> placeOrders(List<TransactionCommand> commands) {
+        List<TransactionResult> results = orderMatchingPort.executeTransactions(commands);
+        logger.info("Placed {} orders in bulk", commands.size());
+        return results;
+    }
+
     /**
      * Restarts the WebSocket session for the configured vendor.
      */
@@ -164,6 +169,10 @@ public class ExchangeFacade {
         logger.info("Restarted WebSocket session for vendor: {}", vendor);
     }
 
+    private static String quoteHolder(String userId) {
+        return "user:" + userId;
+    }
+
     private void validateVendor(String vendor) {
         if (vendor == null || !exchangeAdapters.containsKey(vendor)) {
             throw new IllegalArgumentException("Invalid or unsupported vendor: " + vendor);
@@ -0,0 +1,22 @@
+package com.traders.exchange.application;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Feed subscription settings shared by all vendors.
+ *
+ * @param releaseGraceMs how long an instrument nobody holds stays subscribed, so a user paging back
+ *                       to it does not cost an unsubscribe and a subscribe
+ * @param holderIdleMs   how long a holder whose end is never signalled, such as a user's quote screen,
+ *                       keeps its instruments without asking for them again
+ */
+@ConfigurationProperties(prefix = "exchange.subscription")
+public record SubscriptionConfig(
+    long releaseGraceMs,
+    long holderIdleMs
+) {
+    public SubscriptionConfig {
+        if (releaseGraceMs <= 0) releaseGraceMs = 30000;
+        if (holderIdleMs <= 0) holderIdleMs = 900000;
+    }
+}
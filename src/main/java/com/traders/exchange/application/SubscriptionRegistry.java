@@ -0,0 +1,293 @@
+package com.traders.exchange.application;
+
+import com.traders.common.model.InstrumentInfo;
+import com.traders.common.properties.ConfigProperties;
+import com.traders.exchange.domain.FeedMode;
+import com.traders.exchange.domain.InstrumentRegistry;
+import com.traders.exchange.domain.SubscriptionCommand;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference counts feed interest in each instrument across holders, the base subscriptions and
+ * every user's quote screen, so the feed carries each instrument once and only while someone
+ * holds it.
+ * <p>
+ * The first holder of an instrument, or the first to want a richer {@link FeedMode}, dispatches a
+ * {@link SubscriptionCommand.Subscribe}. When the last holder lets go the instrument stays
+ * subscribed for {@code exchange.subscription.release-grace-ms} before an
+ * {@link SubscriptionCommand.Unsubscribe} goes out; a downgrade to a poorer mode waits the same
+ * way. Taking the instrument again within the grace period cancels the release.
+ * <p>
+ * Holders taken with {@link #replaceExpiring} let go of everything once they have not called again
+ * for {@code exchange.subscription.holder-idle-ms}, as nothing tells the registry when a user's
+ * quote screen is closed.
+ */
+@Service
+public class SubscriptionRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionRegistry.class);
+    private static final FeedMode[] MODES = FeedMode.values();
+
+    /** Holder of the base subscriptions that orders match against. */
+    public static final String BASE_HOLDER = "base";
+
+    private final CommandBus<SubscriptionCommand> subscriptionBus;
+    private final ConfigProperties configProperties;
+    private final InstrumentRegistry instrumentRegistry;
+    private final long releaseGraceMs;
+    private final long holderIdleMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("subscription-release").factory());
+
+    // Guarded by this
+    private final Map<Integer, Interest> interests = new HashMap<>();
+    private final Map<String, Map<Integer, FeedMode>> holdings = new HashMap<>();
+    // Holders released once idle, to the nanoTime of their last call
+    private final Map<String, Long> expiringHolders = new HashMap<>();
+
+    private static final class Interest {
+        final InstrumentInfo info;
+        // Holders per mode, indexed by FeedMode ordinal
+        final int[] holders = new int[MODES.length];
+        // Mode the feed was last asked for, or null if it was released
+        FeedMode dispatched;
+        // Bumped on every change, so a release scheduled before it can tell it is outdated
+        long version;
+
+        Interest(InstrumentInfo info) {
+            this.info = info;
+        }
+
+        FeedMode wanted() {
+            for (int mode = MODES.length - 1; mode >= 0; mode--) {
+                if (holders[mode] > 0) return MODES[mode];
+            }
+            return null;
+        }
+    }
+
+    private record Release(int instrument, long version) {}
+
+    public SubscriptionRegistry(CommandBus<SubscriptionCommand> subscriptionBus, ConfigProperties configProperties,
+                                InstrumentRegistry instrumentRegistry, SubscriptionConfig config) {
+        this.subscriptionBus = subscriptionBus;
+        this.configProperties = configProperties;
+        this.instrumentRegistry = instrumentRegistry;
+        this.releaseGraceMs = config.releaseGraceMs();
+        this.holderIdleMs = config.holderIdleMs();
+    }
+
+    @PostConstruct
+    public void start() {
+        long sweepMs = Math.max(1, holderIdleMs / 4);
+        scheduler.scheduleWithFixedDelay(this::releaseIdleHolders, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Adds the instruments to what the holder holds, in the given mode.
+     */
+    public synchronized void acquire(String holder, Collection<InstrumentInfo> instruments, FeedMode mode) {
+        Map<Integer, FeedMode> held = holdings.computeIfAbsent(holder, h -> new HashMap<>());
+        Changes changes = new Changes();
+        for (InstrumentInfo info : instruments) {
+            int instrument = instrumentRegistry.register(info);
+            hold(held, instrument, info, mode, changes);
+        }
+        changes.apply();
+        logger.debug("{} holds {} instruments", holder, held.size());
+    }
+
+    /**
+     * Makes the holder hold exactly the given instruments, releasing whatever else it held.
+     */
+    public synchronized void replace(String holder, Collection<InstrumentInfo> instruments, FeedMode mode) {
+        Map<Integer, FeedMode> held = holdings.computeIfAbsent(holder, h -> new HashMap<>());
+        Changes changes = new Changes();
+        Set<Integer> kept = new HashSet<>();
+        for (InstrumentInfo info : instruments) {
+            int instrument = instrumentRegistry.register(info);
+            kept.add(instrument);
+            hold(held, instrument, info, mode, changes);
+        }
+        List<Integer> dropped = held.keySet().stream().filter(instrument -> !kept.contains(instrument)).toList();
+        dropped.forEach(instrument -> unhold(held, instrument, changes));
+        if (held.isEmpty()) holdings.remove(holder);
+        changes.apply();
+    }
+
+    /**
+     * Like {@link #replace}, but the holder releases everything once it has not called again for
+     * {@code holder-idle-ms}.
+     */
+    public synchronized void replaceExpiring(String holder, Collection<InstrumentInfo> instruments, FeedMode mode) {
+        replace(holder, instruments, mode);
+        if (holdings.containsKey(holder)) {
+            expiringHolders.put(holder, System.nanoTime());
+        } else {
+            expiringHolders.remove(holder);
+        }
+    }
+
+    /**
+     * Releases the given instruments from the holder.
+     */
+    public synchronized void release(String holder, Collection<InstrumentInfo> instruments) {
+        Map<Integer, FeedMode> held = holdings.get(holder);
+        if (held == null) return;
+        Changes changes = new Changes();
+        for (InstrumentInfo info : instruments) {
+            int instrument = instrumentRegistry.indexOf(String.valueOf(info.getInstrumentToken()));
+            if (instrument != InstrumentRegistry.UNKNOWN) unhold(held, instrument, changes);
+        }
+        if (held.isEmpty()) holdings.remove(holder);
+        changes.apply();
+    }
+
+    /**
+     * Releases everything the holder holds.
+     */
+    public synchronized void releaseAll(String holder) {
+        expiringHolders.remove(holder);
+        Map<Integer, FeedMode> held = holdings.remove(holder);
+        if (held == null) return;
+        Changes changes = new Changes();
+        for (Integer instrument : List.copyOf(held.keySet())) {
+            unhold(held, instrument, changes);
+        }
+        changes.apply();
+    }
+
+    /**
+     * @return number of holders of the instrument, or 0 if it is not held
+     */
+    public synchronized int holders(InstrumentInfo info) {
+        int instrument = instrumentRegistry.indexOf(String.valueOf(info.getInstrumentToken()));
+        Interest interest = interests.get(instrument);
+        if (interest == null) return 0;
+        int holders = 0;
+        for (int count : interest.holders) holders += count;
+        return holders;
+    }
+
+    /**
+     * @return number of instruments the feed is currently asked to carry
+     */
+    public synchronized int subscribedCount() {
+        return (int) interests.values().stream().filter(interest -> interest.dispatched != null).count();
+    }
+
+    private void hold(Map<Integer, FeedMode> held, int instrument, InstrumentInfo info, FeedMode mode,
+                      Changes changes) {
+        FeedMode previous = held.put(instrument, mode);
+        if (previous == mode) return;
+        Interest interest = interests.computeIfAbsent(instrument, i -> new Interest(info));
+        if (previous != null) interest.holders[previous.ordinal()]--;
+        interest.holders[mode.ordinal()]++;
+        changed(instrument, interest, changes);
+    }
+
+    private void unhold(Map<Integer, FeedMode> held, int instrument, Changes changes) {
+        FeedMode previous = held.remove(instrument);
+        if (previous == null) return;
+        Interest interest = interests.get(instrument);
+        interest.holders[previous.ordinal()]--;
+        changed(instrument, interest, changes);
+    }
+
+    private void changed(int instrument, Interest interest, Changes changes) {
+        interest.version++;
+        FeedMode wanted = interest.wanted();
+        if (wanted != null && (interest.dispatched == null || wanted.compareTo(interest.dispatched) > 0)) {
+            interest.dispatched = wanted;
+            changes.subscribe(wanted, interest.info);
+        } else if (wanted != interest.dispatched) {
+            changes.releases.add(new Release(instrument, interest.version));
+        } else if (wanted == null) {
+            interests.remove(instrument);
+        }
+    }
+
+    private synchronized void releaseIdleHolders() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(holderIdleMs);
+        List<String> idle = expiringHolders.entrySet().stream()
+                .filter(entry -> now - entry.getValue() > idleNanos)
+                .map(Map.Entry::getKey)
+                .toList();
+        idle.forEach(this::releaseAll);
+        if (!idle.isEmpty()) {
+            logger.info("Released {} holders idle for over {}ms", idle.size(), holderIdleMs);
+        }
+    }
+
+    private synchronized void expire(List<Release> releases) {
+        Changes changes = new Changes();
+        for (Release release : releases) {
+            Interest interest = interests.get(release.instrument());
+            // Held again, or changed again and rescheduled, since this release was scheduled
+            if (interest == null || interest.version != release.version()) continue;
+            FeedMode wanted = interest.wanted();
+            if (wanted == null) {
+                interests.remove(release.instrument());
+                changes.unsubscribe(interest.dispatched, interest.info);
+            } else {
+                changes.subscribe(wanted, interest.info);
+            }
+            interest.dispatched = wanted;
+        }
+        changes.apply();
+    }
+
+    /**
+     * Commands collected over one call, dispatched together once its bookkeeping is done.
+     */
+    private final class Changes {
+        final Map<FeedMode, List<InstrumentInfo>> subscribes = new EnumMap<>(FeedMode.class);
+        final Map<FeedMode, List<InstrumentInfo>> unsubscribes = new EnumMap<>(FeedMode.class);
+        final List<Release> releases = new ArrayList<>();
+
+        void subscribe(FeedMode mode, InstrumentInfo info) {
+            subscribes.computeIfAbsent(mode, m -> new ArrayList<>()).add(info);
+        }
+
+        void unsubscribe(FeedMode mode, InstrumentInfo info) {
+            unsubscribes.computeIfAbsent(mode, m -> new ArrayList<>()).add(info);
+        }
+
+        void apply() {
+            String vendor = configProperties.getVendor();
+            unsubscribes.forEach((mode, instruments) -> {
+                subscriptionBus.dispatch(vendor, new SubscriptionCommand.Unsubscribe(instruments, mode));
+                logger.info("Released {} instruments in {} mode for vendor: {}", instruments.size(), mode, vendor);
+            });
+            subscribes.forEach((mode, instruments) -> {
+                subscriptionBus.dispatch(vendor, new SubscriptionCommand.Subscribe(instruments, mode));
+                logger.info("Subscribed {} instruments in {} mode for vendor: {}", instruments.size(), mode, vendor);
+            });
+            if (!releases.isEmpty()) {
+                List<Release> due = List.copyOf(releases);
+                scheduler.schedule(() -> expire(due), releaseGraceMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
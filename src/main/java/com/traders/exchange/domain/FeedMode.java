@@ -0,0 +1,13 @@
+package com.traders.exchange.domain;
+
+/**
+ * How much market data a feed subscription streams for an instrument.
+ */
+public enum FeedMode {
+    /** Last traded price and time only; enough for display. */
+    TICKER,
+    /** Last trade, volume, buy/sell totals and OHLC, without depth. */
+    QUOTE,
+    /** Everything in {@link #QUOTE} plus open interest and five levels of depth, as matching needs. */
+    FULL
+}
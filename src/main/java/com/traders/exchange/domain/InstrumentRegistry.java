@@ -0,0 +1,232 @@
+package com.traders.exchange.domain;
+
+import com.traders.common.model.InstrumentInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+/**
+ * Assigns every instrument a dense {@code int} index, so books, locks, quote slots and
+ * subscriber sets can live in arrays instead of maps keyed by instrument id strings.
+ * <p>
+ * The feed resolves an index from the Dhan security id through an open-addressing int table
+ * that is read without locking; order and REST paths resolve it from the instrument id string.
+ * Each index keeps its id string, created once, so strings are only handed out at the Redis,
+ * STOMP and REST boundaries. Indexes are never reused.
+ */
+@Component
+public class InstrumentRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentRegistry.class);
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+
+    public static final int UNKNOWN = -1;
+    public static final int NO_SEGMENT = -1;
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    /**
+     * @param segmentCode     Exchange segment code as sent in feed headers, or {@link #NO_SEGMENT}
+     * @param exchangeSegment Exchange segment name from {@link InstrumentInfo}, if known
+     */
+    public record Instrument(int index, int securityId, int segmentCode, String exchangeSegment,
+                             String instrumentId, InstrumentInfo info) {}
+
+    private record Table(int[] keys, int[] values) {
+        Table(int capacity) {
+            this(filled(capacity), new int[capacity]);
+        }
+
+        private static int[] filled(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+
+    private final Map<String, Integer> byInstrumentId = new ConcurrentHashMap<>();
+    private final List<IntConsumer> registrationListeners = new CopyOnWriteArrayList<>();
+    private volatile Table table = new Table(1024);
+    private volatile Instrument[] instruments = new Instrument[512];
+    private volatile int size;
+
+    /**
+     * Hot-path lookup by security id; never locks or allocates.
+     *
+     * @return the index, or {@link #UNKNOWN}
+     */
+    public int indexOf(int securityId) {
+        Table current = table;
+        int mask = current.keys.length - 1;
+        for (int slot = hash(securityId) & mask; ; slot = (slot + 1) & mask) {
+            int key = (int) INT_ARRAY.getAcquire(current.keys, slot);
+            if (key == securityId) return current.values[slot];
+            if (key == EMPTY) return UNKNOWN;
+        }
+    }
+
+    /**
+     * @return the index, or {@link #UNKNOWN}
+     */
+    public int indexOf(String instrumentId) {
+        Integer index = byInstrumentId.get(instrumentId);
+        return index == null ? UNKNOWN : index;
+    }
+
+    /**
+     * Returns the index for an instrument seen on the feed, registering it on first sight.
+     */
+    public int register(int securityId, int segmentCode) {
+        int index = indexOf(securityId);
+        if (index != UNKNOWN && instruments[index].segmentCode() != NO_SEGMENT) return index;
+        synchronized (this) {
+            index = indexOf(securityId);
+            if (index == UNKNOWN) {
+                return add(securityId, segmentCode, null, String.valueOf(securityId), null);
+            }
+            Instrument existing = instruments[index];
+            if (existing.segmentCode() == NO_SEGMENT) {
+                replace(new Instrument(index, securityId, segmentCode, existing.exchangeSegment(),
+                        existing.instrumentId(), existing.info()));
+            } else if (existing.segmentCode() != segmentCode) {
+                logger.warn("Security id {} seen on segment {} but registered on segment {}",
+                        securityId, segmentCode, existing.segmentCode());
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Returns the index for an instrument id as used on orders and REST requests, registering it
+     * on first sight.
+     */
+    public int register(String instrumentId) {
+        int index = indexOf(instrumentId);
+        if (index != UNKNOWN) return index;
+        synchronized (this) {
+            index = indexOf(instrumentId);
+            if (index != UNKNOWN) return index;
+            Integer securityId = parseSecurityId(instrumentId);
+            if (securityId != null) {
+                index = indexOf(securityId);
+                if (index != UNKNOWN) return index;
+            }
+            return add(securityId == null ? EMPTY : securityId, NO_SEGMENT, null, instrumentId, null);
+        }
+    }
+
+    /**
+     * Registers an instrument from the subscription or instrument master path, recording its
+     * segment name and info.
+     */
+    public int register(InstrumentInfo info) {
+        String instrumentId = String.valueOf(info.getInstrumentToken());
+        int index = register(instrumentId);
+        Instrument existing = instruments[index];
+        if (existing.info() == null) {
+            synchronized (this) {
+                existing = instruments[index];
+                replace(new Instrument(index, existing.securityId(), existing.segmentCode(),
+                        info.getExchangeSegment(), existing.instrumentId(), info));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Calls the listener with the index of every instrument registered from now on. Listeners run
+     * while the registry's monitor is held, so they must be quick and must not register.
+     */
+    public void onRegistered(IntConsumer listener) {
+        registrationListeners.add(listener);
+    }
+
+    public Instrument instrument(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Unknown instrument index: " + index);
+        }
+        return instruments[index];
+    }
+
+    /**
+     * @return the instrument id string, created once at registration
+     */
+    public String instrumentId(int index) {
+        return instrument(index).instrumentId();
+    }
+
+    /**
+     * @return number of registered instruments; valid indexes are {@code 0..size()-1}
+     */
+    public int size() {
+        return size;
+    }
+
+    // Callers hold the monitor
+    private int add(int securityId, int segmentCode, String exchangeSegment, String instrumentId, InstrumentInfo info) {
+        int index = size;
+        if (index == instruments.length) {
+            instruments = Arrays.copyOf(instruments, index * 2);
+        }
+        instruments[index] = new Instrument(index, securityId, segmentCode, exchangeSegment, instrumentId, info);
+        size = index + 1;
+        if (securityId != EMPTY) {
+            putSecurityId(securityId, index);
+        }
+        byInstrumentId.put(instrumentId, index);
+        registrationListeners.forEach(listener -> listener.accept(index));
+        return index;
+    }
+
+    private void replace(Instrument instrument) {
+        Instrument[] current = instruments;
+        current[instrument.index()] = instrument;
+        // Republished so readers holding the array see the replacement
+        instruments = current;
+    }
+
+    private void putSecurityId(int securityId, int index) {
+        Table current = table;
+        if ((size << 1) > current.keys.length) {
+            Table grown = new Table(current.keys.length << 1);
+            for (int i = 0; i < current.keys.length; i++) {
+                if (current.keys[i] != EMPTY) insert(grown, current.keys[i], current.values[i]);
+            }
+            insert(grown, securityId, index);
+            table = grown;
+            return;
+        }
+        insert(current, securityId, index);
+    }
+
+    private static void insert(Table target, int securityId, int index) {
+        int mask = target.keys.length - 1;
+        int slot = hash(securityId) & mask;
+        while (target.keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        // Value first, then the key with release semantics, so a reader that sees the key sees the value
+        target.values[slot] = index;
+        INT_ARRAY.setRelease(target.keys, slot, securityId);
+    }
+
+    private static int hash(int securityId) {
+        int h = securityId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static Integer parseSecurityId(String instrumentId) {
+        try {
+            return Integer.parseInt(instrumentId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
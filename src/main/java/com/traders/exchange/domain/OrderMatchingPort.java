@@ -3,7 +3,29 @@ package com.traders.exchange.domain;
 
 import com.traders.common.model.MarketQuotes;
 
+import java.util.List;
+
 public interface OrderMatchingPort {
     void executeTransaction(TransactionCommand command);
+
+    /**
+     * Validates and books a batch of commands, grouping placements by instrument so each
+     * instrument's book is touched once.
+     *
+     * @param commands Commands to execute
+     * @return one result per command, in the order given
+     */
+    List<TransactionResult> executeTransactions(List<TransactionCommand> commands);
     void onPriceUpdate(String instrumentId, MarketQuotes quote);
+
+    /**
+     * Primitive form of {@link #onPriceUpdate(String, MarketQuotes)} used by the binary feed so a
+     * tick reaches matching without a quote object or instrument id string being built.
+     *
+     * @param instrument Index from {@link InstrumentRegistry}
+     * @param lastPrice Last traded price; ticks with a zero price are ignored
+     * @param bestBid   Best bid from the first depth level
+     * @param bestAsk   Best ask from the first depth level
+     */
+    void onPriceUpdate(int instrument, double lastPrice, double bestBid, double bestAsk);
 }
\ No newline at end of file
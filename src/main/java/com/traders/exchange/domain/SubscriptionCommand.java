@@ -5,6 +5,23 @@ import com.traders.common.model.InstrumentInfo;
 import java.util.List;
 
 public sealed interface SubscriptionCommand {
-    record Subscribe(List<InstrumentInfo> instruments) implements SubscriptionCommand {}
-    record Unsubscribe(List<InstrumentInfo> instruments) implements SubscriptionCommand {}
-}
\ No newline at end of file
+    record Subscribe(List<InstrumentInfo> instruments, FeedMode mode) implements SubscriptionCommand {
+        public Subscribe {
+            if (mode == null) mode = FeedMode.FULL;
+        }
+
+        public Subscribe(List<InstrumentInfo> instruments) {
+            this(instruments, FeedMode.FULL);
+        }
+    }
+
+    record Unsubscribe(List<InstrumentInfo> instruments, FeedMode mode) implements SubscriptionCommand {
+        public Unsubscribe {
+            if (mode == null) mode = FeedMode.FULL;
+        }
+
+        public Unsubscribe(List<InstrumentInfo> instruments) {
+            this(instruments, FeedMode.FULL);
+        }
+    }
+}
@@ -18,4 +18,14 @@ public record TradeResponse(
     public Double getStopLossPrice() {
         return request.stopLossPrice();
     }
+
+    public TradeResponse withAskedPrice(Double newPrice, Double priceWhenUpdated) {
+        return new TradeResponse(
+                request.withAskedPrice(newPrice),
+                transactionId,
+                instrumentId,
+                isShortSell,
+                priceWhenUpdated
+        );
+    }
 }
\ No newline at end of file
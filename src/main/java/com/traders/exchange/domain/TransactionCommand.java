@@ -4,4 +4,5 @@ public sealed interface TransactionCommand {
     record PlaceBuy(TradeResponse tradeResponse) implements TransactionCommand {}
     record PlaceSell(TradeResponse tradeResponse) implements TransactionCommand {}
     record UpdateStatus(long transactionId, TransactionStatus status, double price) implements TransactionCommand {}
+    record Cancel(long transactionId) implements TransactionCommand {}
 }
\ No newline at end of file
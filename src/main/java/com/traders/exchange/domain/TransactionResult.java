@@ -0,0 +1,18 @@
+package com.traders.exchange.domain;
+
+/**
+ * Outcome of one command submitted through {@link OrderMatchingPort#executeTransactions}.
+ */
+public record TransactionResult(
+    Long transactionId,
+    boolean accepted,
+    String reason
+) {
+    public static TransactionResult accepted(Long transactionId) {
+        return new TransactionResult(transactionId, true, null);
+    }
+
+    public static TransactionResult rejected(Long transactionId, String reason) {
+        return new TransactionResult(transactionId, false, reason);
+    }
+}
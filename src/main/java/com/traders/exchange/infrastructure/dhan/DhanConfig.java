@@ -5,6 +5,31 @@ import org.springframework.context.annotation.Configuration;
 
 import java.util.ArrayList;
 import java.util.List;
+
+/**
+ * @param feedUrl          feed WebSocket address, e.g. a local {@code DhanFeedSimulator} from src/simulator; defaults to Dhan's live feed
+ * @param feedRingSize     ticks each connection's feed pipeline can hold before the reader waits
+ * @param feedWaitStrategy how pipeline stages wait for ticks: blocking (the default, idle costs no CPU),
+ *                         sleeping, yielding or busy-spin
+ * @param fanOutQueueSize  quotes queued per STOMP/cache observer before older ones are dropped
+ * @param captureDir       directory raw feed frames are recorded to, one subdirectory per connection; capture is off when unset
+ * @param captureSegmentMb size of each memory-mapped capture segment, below 2048
+ * @param captureMaxSegments capture segments kept per connection before the oldest is deleted; 0 keeps all
+ * @param staleCheckIntervalMs how often instruments and connections are checked for silence
+ * @param staleTickFactor  multiple of an instrument's mean tick interval after which it counts as silent
+ * @param staleMinSilenceMs silence below which an instrument never counts as stale, however fast it ticks
+ * @param connectionSilenceMs silence across a whole subscribed connection after which it is reconnected
+ * @param maxInstrumentsPerConnection instruments one feed socket may carry; Dhan allows 5000
+ * @param subscriptionCoalesceMs window over which a connection's subscription changes are collected into one send
+ * @param subscriptionPaceMs     minimum gap between subscription messages across all connections
+ * @param standbyConnections     connections kept open with no subscriptions, ready to take over a degraded one
+ * @param migrationOverlapMs     how long a degraded connection keeps instruments after they are subscribed elsewhere
+ * @param heartbeatIntervalMs    interval between pings on each connection
+ * @param pongTimeoutMs          how long a connection may go without a pong or a frame after a ping before it reconnects
+ * @param marketOpen             local time the feed starts ticking on weekdays, e.g. 09:15; silence checks start here
+ * @param marketClose            local time the feed stops ticking; silence checks stop here
+ * @param marketZone             time zone of {@code marketOpen} and {@code marketClose}
+ */
 @ConfigurationProperties(prefix = "exchange.dhan")
 public record DhanConfig(
     String apiKey,
@@ -12,10 +37,51 @@ public record DhanConfig(
     String instrumentUrl,
     List<String> apiCredentials,
     int allowedConnection,
-    boolean active
+    boolean active,
+    String feedUrl,
+    int feedRingSize,
+    String feedWaitStrategy,
+    int fanOutQueueSize,
+    String captureDir,
+    int captureSegmentMb,
+    int captureMaxSegments,
+    long staleCheckIntervalMs,
+    int staleTickFactor,
+    long staleMinSilenceMs,
+    long connectionSilenceMs,
+    int maxInstrumentsPerConnection,
+    long subscriptionCoalesceMs,
+    long subscriptionPaceMs,
+    int standbyConnections,
+    long migrationOverlapMs,
+    long heartbeatIntervalMs,
+    long pongTimeoutMs,
+    String marketOpen,
+    String marketClose,
+    String marketZone
 ) {
     public DhanConfig {
         if (apiCredentials == null) apiCredentials = new ArrayList<>();
+        if (feedUrl == null || feedUrl.isBlank()) feedUrl = "wss://api-feed.dhan.co";
+        if (feedRingSize <= 0) feedRingSize = 4096;
+        if (feedWaitStrategy == null || feedWaitStrategy.isBlank()) feedWaitStrategy = "blocking";
+        if (fanOutQueueSize <= 0) fanOutQueueSize = 8192;
+        if (captureSegmentMb <= 0) captureSegmentMb = 256;
+        if (captureMaxSegments < 0) captureMaxSegments = 0;
+        if (staleCheckIntervalMs <= 0) staleCheckIntervalMs = 5000;
+        if (staleTickFactor <= 0) staleTickFactor = 20;
+        if (staleMinSilenceMs <= 0) staleMinSilenceMs = 30000;
+        if (connectionSilenceMs <= 0) connectionSilenceMs = 60000;
+        if (maxInstrumentsPerConnection <= 0) maxInstrumentsPerConnection = 5000;
+        if (subscriptionCoalesceMs <= 0) subscriptionCoalesceMs = 5;
+        if (subscriptionPaceMs <= 0) subscriptionPaceMs = 25;
+        if (standbyConnections < 0) standbyConnections = 0;
+        if (migrationOverlapMs <= 0) migrationOverlapMs = 2000;
+        if (heartbeatIntervalMs <= 0) heartbeatIntervalMs = 30000;
+        if (pongTimeoutMs <= 0) pongTimeoutMs = 10000;
+        if (marketOpen == null || marketOpen.isBlank()) marketOpen = "09:15";
+        if (marketClose == null || marketClose.isBlank()) marketClose = "15:30";
+        if (marketZone == null || marketZone.isBlank()) marketZone = "Asia/Kolkata";
     }
 
 }
\ No newline at end of file
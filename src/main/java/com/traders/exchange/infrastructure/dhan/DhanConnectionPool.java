@@ -1,39 +1,47 @@
 // com.traders.exchange.infrastructure.dhan.DhanConnectionPool
 package com.traders.exchange.infrastructure.dhan;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
 import com.traders.common.model.InstrumentInfo;
+import com.traders.exchange.domain.FeedMode;
+import com.traders.exchange.domain.InstrumentRegistry;
 import com.traders.exchange.domain.SubscriptionCommand;
+import com.traders.exchange.util.LatencyHistogram;
+import com.traders.exchange.util.Subject;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.PingMessage;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.client.WebSocketConnectionManager;
 
 import javax.websocket.Session;
-import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Component
 public class DhanConnectionPool {
-    private static final int SUBSCRIBE_REQUEST_CODE = 21;
-    private static final int UNSUBSCRIBE_REQUEST_CODE = 22;
-    private static final long HEARTBEAT_INTERVAL_MS = 30000; // 30 seconds
+    // Unsubscribe codes are the subscribe code plus one
+    private static final int TICKER_SUBSCRIBE_CODE = 15;
+    private static final int QUOTE_SUBSCRIBE_CODE = 17;
+    private static final int FULL_SUBSCRIBE_CODE = 21;
     private static final int MAX_RECONNECT_ATTEMPTS = 5;
     private static final long INITIAL_BACKOFF_MS = 500; // 1 second
 
@@ -41,36 +49,280 @@ public class DhanConnectionPool {
     private final DhanWebSocketFactory webSocketFactory;
     @Getter private final List<DhanConnection> connections = new CopyOnWriteArrayList<>();
     private final CircuitBreaker circuitBreaker;
+    private final InstrumentRegistry instrumentRegistry;
+    private final DhanFeedActivity activity;
+    private final DhanFeedOwnership ownership;
+    private final int maxInstrumentsPerConnection;
+    private final int standbyConnections;
+    private final long migrationOverlapMs;
+    private final long connectionSilenceNanos;
 
-    public DhanConnectionPool(DhanCredentialFactory credentialFactory, DhanWebSocketFactory webSocketFactory) {
+    public DhanConnectionPool(DhanCredentialFactory credentialFactory, DhanWebSocketFactory webSocketFactory,
+                              InstrumentRegistry instrumentRegistry, DhanFeedActivity activity,
+                              DhanFeedOwnership ownership, DhanConfig config) {
         this.credentialFactory = credentialFactory;
         this.webSocketFactory = webSocketFactory;
+        this.instrumentRegistry = instrumentRegistry;
+        this.activity = activity;
+        this.ownership = ownership;
+        this.maxInstrumentsPerConnection = config.maxInstrumentsPerConnection();
+        this.standbyConnections = config.standbyConnections();
+        this.migrationOverlapMs = config.migrationOverlapMs();
+        this.connectionSilenceNanos = TimeUnit.MILLISECONDS.toNanos(config.connectionSilenceMs());
         this.circuitBreaker = CircuitBreaker.ofDefaults("dhanWebSocket");
     }
 
+    /**
+     * Connection load while instruments are being placed: the share of the per-socket cap in use
+     * plus the share of the pool's tick rate carried, so a socket with few but busy instruments
+     * counts as loaded too.
+     */
+    private static final class ConnectionLoad {
+        private final DhanConnection connection;
+        private int instruments;
+        private double ticksPerSecond;
+
+        private ConnectionLoad(DhanConnection connection, int instruments, double ticksPerSecond) {
+            this.connection = connection;
+            this.instruments = instruments;
+            this.ticksPerSecond = ticksPerSecond;
+        }
+
+        private double score(int cap, double poolTicksPerSecond) {
+            double rateShare = poolTicksPerSecond > 0 ? ticksPerSecond / poolTicksPerSecond : 0;
+            return (double) instruments / cap + rateShare;
+        }
+    }
+
+    /**
+     * Opens one connection to take subscriptions plus the configured standbys; the remaining
+     * credentials are only connected once every active socket is full.
+     */
     public void initialize() {
+        // Connections from an earlier initialize would keep their sockets, pipelines and heartbeats
+        connections.forEach(DhanConnection::close);
         connections.clear();
-        credentialFactory.getCredentials().forEach(credential -> {
-            connections.add(webSocketFactory.createConnection(credential));
-        });
-        log.info("Initialized DhanConnectionPool with {} connections", connections.size());
+        List<DhanCredentialFactory.Credential> credentials = credentialFactory.getCredentials();
+        int opening = Math.min(credentials.size(), 1 + standbyConnections);
+        for (int i = 0; i < opening; i++) {
+            connections.add(webSocketFactory.createConnection(credentials.get(i)));
+        }
+        // The first connection takes subscriptions; the others wait as warm standbys
+        for (int i = 1; i < connections.size(); i++) {
+            connections.get(i).setStandby(true);
+        }
+        log.info("Initialized DhanConnectionPool with {} of {} connections, {} on standby",
+                connections.size(), credentials.size(), Math.max(connections.size() - 1, 0));
     }
 
     public void execute(SubscriptionCommand command) {
-        DhanConnection conn = getLeastLoadedConnection();
         Runnable subscriptionTask = () -> {
             switch (command) {
-                case SubscriptionCommand.Subscribe(var instruments) -> conn.subscribe(instruments);
-                case SubscriptionCommand.Unsubscribe(var instruments) -> conn.unsubscribe(instruments);
+                case SubscriptionCommand.Subscribe(var instruments, var mode) -> subscribe(instruments, mode);
+                case SubscriptionCommand.Unsubscribe(var instruments, var mode) -> unsubscribe(instruments, mode);
             }
         };
         circuitBreaker.executeRunnable(subscriptionTask);
     }
 
-    private DhanConnection getLeastLoadedConnection() {
-        return connections.stream()
-                .min(Comparator.comparingInt(DhanConnection::getLoad))
-                .orElseGet(() -> createNewConnection(credentialFactory.getRandomCredential()));
+    /**
+     * Places each instrument on the connection that already carries it, or else on the least
+     * loaded connection with room under the per-socket cap, opening a connection on an unused
+     * credential when every socket is full and taking a standby when no credential is left.
+     */
+    private synchronized void subscribe(List<InstrumentInfo> instruments, FeedMode mode) {
+        if (connections.isEmpty()) {
+            createNewConnection(credentialFactory.getRandomCredential());
+        }
+        List<ConnectionLoad> loads = new ArrayList<>();
+        connections.forEach(connection -> {
+            if (!connection.isStandby()) loads.add(loadOf(connection));
+        });
+        double poolTicksPerSecond = loads.stream().mapToDouble(load -> load.ticksPerSecond).sum();
+        Map<DhanConnection, List<InstrumentInfo>> placement = new LinkedHashMap<>();
+        int unplaced = 0;
+        for (InstrumentInfo instrument : instruments) {
+            // Indexes are assigned before the first tick can arrive
+            int index = instrumentRegistry.register(instrument);
+            DhanConnection target = ownerOf(index);
+            if (target == null) {
+                ConnectionLoad least = leastLoaded(loads, poolTicksPerSecond);
+                if (least == null) {
+                    least = openSpareConnection(loads, "Every connection is at " + maxInstrumentsPerConnection + " instruments");
+                }
+                if (least == null) {
+                    least = takeStandby(loads, "Every active connection is full");
+                }
+                if (least == null) {
+                    unplaced++;
+                    continue;
+                }
+                least.instruments++;
+                least.ticksPerSecond += ticksPerSecond(index);
+                target = least.connection;
+                // Carried by one socket from here on; drops any hand-over left from a migration
+                ownership.clear(index);
+            }
+            placement.computeIfAbsent(target, connection -> new ArrayList<>()).add(instrument);
+        }
+        if (unplaced > 0) {
+            log.error("No connection has room for {} of {} instruments; each connection carries at most {}",
+                    unplaced, instruments.size(), maxInstrumentsPerConnection);
+        }
+        placement.forEach((connection, placed) -> connection.subscribe(placed, mode));
+    }
+
+    private synchronized void unsubscribe(List<InstrumentInfo> instruments, FeedMode mode) {
+        Map<DhanConnection, List<InstrumentInfo>> placement = new LinkedHashMap<>();
+        for (InstrumentInfo instrument : instruments) {
+            DhanConnection owner = ownerOf(instrumentRegistry.register(instrument));
+            if (owner != null) {
+                placement.computeIfAbsent(owner, connection -> new ArrayList<>()).add(instrument);
+            }
+        }
+        placement.forEach((connection, placed) -> connection.unsubscribe(placed, mode));
+    }
+
+    private ConnectionLoad leastLoaded(List<ConnectionLoad> loads, double poolTicksPerSecond) {
+        return loads.stream()
+                .filter(load -> load.instruments < maxInstrumentsPerConnection)
+                .min(Comparator.comparingDouble(load -> load.score(maxInstrumentsPerConnection, poolTicksPerSecond)))
+                .orElse(null);
+    }
+
+    // Credentials are listed once per allowed connection, so the next unused one follows the last opened
+    private ConnectionLoad openSpareConnection(List<ConnectionLoad> loads, String reason) {
+        List<DhanCredentialFactory.Credential> credentials = credentialFactory.getCredentials();
+        if (connections.size() >= credentials.size()) return null;
+        DhanConnection connection = createNewConnection(credentials.get(connections.size()));
+        log.info("{}; opened {}", reason, connection.getName());
+        ConnectionLoad load = new ConnectionLoad(connection, 0, 0);
+        loads.add(load);
+        return load;
+    }
+
+    private ConnectionLoad takeStandby(List<ConnectionLoad> loads, String reason) {
+        for (DhanConnection connection : connections) {
+            if (connection.isStandby()) {
+                connection.setStandby(false);
+                log.info("{}; {} leaves standby", reason, connection.getName());
+                ConnectionLoad load = loadOf(connection);
+                loads.add(load);
+                return load;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves every instrument off a degraded connection, make before break: the instruments are
+     * subscribed on a connected standby, or else spread over the least loaded healthy
+     * connections, while the old socket keeps them for {@code migration-overlap-ms}.
+     * {@link DhanFeedOwnership} passes on the old socket's ticks until the new one delivers, and
+     * only the new one's after. When a standby took over, the degraded connection becomes the
+     * standby once it recovers.
+     * <p>
+     * Connections that have themselves been silent for {@code connection-silence-ms} are not
+     * migrated to. When no healthy connection has room, instruments go to any standby left, even
+     * one still connecting, and then to a connection opened on an unused credential; a connection
+     * that is still to connect keeps the old socket's overlap for {@code connection-silence-ms}
+     * at least. Instruments with nowhere at all to go stay on the degraded connection, and are
+     * logged as such.
+     *
+     * @return number of instruments moved
+     */
+    public synchronized int migrate(DhanConnection from) {
+        Map<Integer, FeedMode> moving = new LinkedHashMap<>(from.getSubscriptions());
+        if (moving.isEmpty()) return 0;
+        long now = System.nanoTime();
+        List<ConnectionLoad> loads = new ArrayList<>();
+        DhanConnection standby = null;
+        int silentPeers = 0;
+        for (DhanConnection connection : connections) {
+            if (connection == from || !connection.isConnected()) continue;
+            if (connection.isSilent(now, connectionSilenceNanos)) {
+                silentPeers++;
+            } else if (!connection.isStandby()) {
+                loads.add(loadOf(connection));
+            } else if (standby == null && connection.getSubscriptionCount() == 0) {
+                standby = connection;
+            }
+        }
+        if (silentPeers > 0) {
+            log.warn("{} other subscribed connections are silent too; migrating {} instruments off {} regardless",
+                    silentPeers, moving.size(), from.getName());
+        }
+        if (standby != null) {
+            standby.setStandby(false);
+            loads = new ArrayList<>(List.of(loadOf(standby)));
+        }
+        double poolTicksPerSecond = loads.stream().mapToDouble(load -> load.ticksPerSecond).sum();
+        Map<DhanConnection, Map<FeedMode, List<InstrumentInfo>>> placement = new LinkedHashMap<>();
+        List<InstrumentInfo> moved = new ArrayList<>();
+        int unplaced = 0;
+        for (Map.Entry<Integer, FeedMode> subscription : moving.entrySet()) {
+            int index = subscription.getKey();
+            InstrumentInfo info = instrumentRegistry.instrument(index).info();
+            if (info == null) continue;
+            ConnectionLoad least = leastLoaded(loads, poolTicksPerSecond);
+            if (least == null) {
+                least = takeStandby(loads, "No healthy connection has room for instruments leaving " + from.getName());
+            }
+            if (least == null) {
+                least = openSpareConnection(loads, "No healthy connection or standby for instruments leaving " + from.getName());
+            }
+            if (least == null) {
+                unplaced++;
+                continue;
+            }
+            least.instruments++;
+            least.ticksPerSecond += ticksPerSecond(index);
+            ownership.handOver(index, from.getId(), least.connection.getId());
+            placement.computeIfAbsent(least.connection, connection -> new EnumMap<>(FeedMode.class))
+                    .computeIfAbsent(subscription.getValue(), mode -> new ArrayList<>())
+                    .add(info);
+            moved.add(info);
+        }
+        placement.forEach((connection, byMode) -> byMode.forEach((mode, placed) -> connection.subscribe(placed, mode)));
+        // A target that is still connecting needs longer than the usual overlap to take over
+        boolean connecting = placement.keySet().stream().anyMatch(connection -> !connection.isConnected());
+        from.handOff(moved, connecting ? Math.max(migrationOverlapMs, TimeUnit.NANOSECONDS.toMillis(connectionSilenceNanos)) : migrationOverlapMs);
+        if (standby != null) from.setStandby(true);
+        if (unplaced > 0) {
+            log.error("No connection, standby or unused credential left for {} of {} instruments; they stay on {}",
+                    unplaced, moving.size(), from.getName());
+        }
+        log.info("Migrated {} instruments from {} to {}", moved.size(), from.getName(),
+                placement.keySet().stream().map(DhanConnection::getName).toList());
+        return moved.size();
+    }
+
+    private DhanConnection ownerOf(int instrument) {
+        for (DhanConnection connection : connections) {
+            if (connection.getSubscriptions().containsKey(instrument)) return connection;
+        }
+        return null;
+    }
+
+    private ConnectionLoad loadOf(DhanConnection connection) {
+        return new ConnectionLoad(connection, connection.getSubscriptionCount(), ticksPerSecond(connection));
+    }
+
+    /**
+     * @return ticks per second the connection's instruments have been arriving at, estimated
+     * from each instrument's mean tick interval
+     */
+    public double ticksPerSecond(DhanConnection connection) {
+        double total = 0;
+        for (int instrument : connection.getSubscriptions().keySet()) {
+            total += ticksPerSecond(instrument);
+        }
+        return total;
+    }
+
+    private double ticksPerSecond(int instrument) {
+        long interval = activity.meanIntervalNanos(instrument);
+        return interval == 0 ? 0 : 1e9 / interval;
     }
 
     private DhanConnection createNewConnection(DhanCredentialFactory.Credential credential) {
@@ -83,27 +335,85 @@ public class DhanConnectionPool {
         connections.forEach(DhanConnection::restart);
     }
 
+    static int subscribeRequestCode(FeedMode mode) {
+        return switch (mode) {
+            case TICKER -> TICKER_SUBSCRIBE_CODE;
+            case QUOTE -> QUOTE_SUBSCRIBE_CODE;
+            case FULL -> FULL_SUBSCRIBE_CODE;
+        };
+    }
+
+    static int unsubscribeRequestCode(FeedMode mode) {
+        return subscribeRequestCode(mode) + 1;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.forEach(DhanConnection::close);
+    }
+
     public static class DhanConnection {
+        // One wall-clock reading paired with nanoTime, so monotonic stamps can be shown as dates
+        private static final long EPOCH_MILLIS_AT_ORIGIN = System.currentTimeMillis();
+        private static final long NANOS_AT_ORIGIN = System.nanoTime();
+        @Getter private final int id;
+        @Getter private final String name;
         private final WebSocketConnectionManager manager;
         private final Executor executor;
         private final DhanWebSocketHandler handler;
-        private final ScheduledExecutorService heartbeatExecutor;
+        private final InstrumentRegistry instrumentRegistry;
+        private final DhanLivenessScheduler liveness;
+        private final long heartbeatIntervalMs;
+        private final long pongTimeoutMs;
+        // Ping payload is the send time as 8 bytes, echoed back in the pong
+        private final ByteBuffer pingPayload = ByteBuffer.allocate(Long.BYTES);
+        // Instrument index to the mode it is subscribed in on this connection
+        private final Map<Integer, FeedMode> subscriptions = new ConcurrentHashMap<>();
+        private final DhanSubscriptionCoalescer coalescer;
+        private final DhanFeedOwnership ownership;
+        // Standbys stay connected with nothing subscribed until a migration or a full pool needs them
+        @Getter @Setter private volatile boolean standby;
         @Getter private volatile boolean isConnected;
+        private volatile boolean closed;
         private int reconnectAttempts;
-        @Getter private LocalDateTime startTime;
-        @Getter private LocalDateTime lastReceivedTime;
-        @Getter private int subscriptionCount;
-        @Getter private LocalDateTime lastPingSent;
-        @Getter private LocalDateTime lastPongReceived;
-        public DhanConnection(WebSocketConnectionManager manager, Executor executor, DhanWebSocketHandler handler) {
+        // Liveness stamps are System.nanoTime() values, 0 until first set; toEpochMillis renders them
+        @Getter private volatile long startNanos;
+        // Set on every tick, so written with lazySet rather than a full volatile store
+        private final AtomicLong lastReceivedNanos = new AtomicLong();
+        @Getter private volatile long lastPingSentNanos;
+        @Getter private volatile long lastPongReceivedNanos;
+        @Getter private volatile long pingRoundTripNanos;
+        // When the socket opened with subscriptions to restore, until the first tick; 0 otherwise
+        private volatile long awaitingFirstTickSinceNanos;
+        // How long the last restored socket took to deliver its first tick
+        @Getter private volatile long firstTickDelayNanos;
+        private final Timer firstTickTimer;
+        private final MeterRegistry meterRegistry;
+        public DhanConnection(int id, String name, WebSocketConnectionManager manager, Executor executor,
+                              DhanWebSocketHandler handler, InstrumentRegistry instrumentRegistry,
+                              DhanSubscriptionPacer pacer, DhanFeedOwnership ownership,
+                              DhanLivenessScheduler liveness, DhanConfig config, MeterRegistry meterRegistry) {
+            this.id = id;
+            this.name = name;
             this.manager = manager;
             this.executor = executor;
             this.handler = handler;
-            this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
+            this.instrumentRegistry = instrumentRegistry;
+            this.ownership = ownership;
+            this.coalescer = new DhanSubscriptionCoalescer(name, handler::getSession, executor, pacer,
+                    config.subscriptionCoalesceMs(), this::reconnect);
+            this.meterRegistry = meterRegistry;
+            this.firstTickTimer = Timer.builder("dhan.feed.reconnect.first.tick")
+                    .description("Time from a socket opening to its first tick after subscriptions are restored")
+                    .tag("connection", name)
+                    .register(meterRegistry);
+            this.liveness = liveness;
+            this.heartbeatIntervalMs = config.heartbeatIntervalMs();
+            this.pongTimeoutMs = config.pongTimeoutMs();
             this.isConnected = false;
             this.reconnectAttempts = 0;
             startConnection();
-           // startHeartbeat();
+            liveness.schedule(this::heartbeat, heartbeatIntervalMs);
         }
 
         private void startConnection() {
@@ -112,7 +422,7 @@ public class DhanConnectionPool {
                     manager.start();
                     isConnected = true;
                     reconnectAttempts = 0;
-                    startTime = LocalDateTime.now();
+                    startNanos = System.nanoTime();
                     log.info("DhanConnection started");
                 } catch (Exception e) {
                     log.error("Failed to start DhanConnection: {}", e.getMessage(), e);
@@ -120,68 +430,177 @@ public class DhanConnectionPool {
                 }
             });
         }
-        public void updateLastPongReceived() {
-            this.lastPongReceived = LocalDateTime.now();
+        /**
+         * Records a pong; its payload echoes the ping's send time, giving the round trip.
+         */
+        public void onPong(ByteBuffer payload) {
+            long now = System.nanoTime();
+            lastPongReceivedNanos = now;
+            if (payload.remaining() >= Long.BYTES) {
+                pingRoundTripNanos = now - payload.getLong(payload.position());
+            }
+        }
+
+        /**
+         * @param receivedNanos {@link System#nanoTime()} at which the latest frame arrived
+         */
+        public void updateLastReceivedTime(long receivedNanos) {
+            lastReceivedNanos.lazySet(receivedNanos);
+            if (awaitingFirstTickSinceNanos != 0) firstTick(receivedNanos);
+        }
+
+        // Frames of one socket arrive on one thread, so only that thread clears the stamp
+        private void firstTick(long receivedNanos) {
+            long since = awaitingFirstTickSinceNanos;
+            if (since == 0) return;
+            awaitingFirstTickSinceNanos = 0;
+            long delay = Math.max(0, receivedNanos - since);
+            firstTickDelayNanos = delay;
+            firstTickTimer.record(delay, TimeUnit.NANOSECONDS);
+            log.info("First tick on {} {}ms after connecting", name, TimeUnit.NANOSECONDS.toMillis(delay));
+        }
+
+        /**
+         * @return whether the connection carries instruments but has received nothing for
+         * longer than {@code silenceNanos}
+         */
+        boolean isSilent(long nowNanos, long silenceNanos) {
+            return !subscriptions.isEmpty() && nanosSinceLastReceived(nowNanos) > silenceNanos;
         }
-        public void updateLastReceivedTime() {
-            this.lastReceivedTime = LocalDateTime.now();
+
+        public long getLastReceivedNanos() {
+            return lastReceivedNanos.get();
+        }
+
+        /**
+         * @return nanoseconds since the last frame, or since the connection started if none has
+         * arrived, or 0 if it has not started
+         */
+        public long nanosSinceLastReceived(long nowNanos) {
+            long last = lastReceivedNanos.get();
+            if (last == 0) last = startNanos;
+            return last == 0 ? 0 : nowNanos - last;
+        }
+
+        /**
+         * Converts a {@link System#nanoTime()} stamp kept by a connection to epoch milliseconds.
+         *
+         * @return epoch milliseconds, or 0 if the stamp was never set
+         */
+        public static long toEpochMillis(long nanos) {
+            return nanos == 0 ? 0 : EPOCH_MILLIS_AT_ORIGIN + (nanos - NANOS_AT_ORIGIN) / 1_000_000;
         }
         public void subscribe(List<InstrumentInfo> instruments) {
-            if(instruments.isEmpty())
-                return;
-            executor.execute(() -> {
-                try {
-                    WebSocketSession session = handler.getSession();
-                    if (session != null && session.isOpen()) {
-                        String subscriptionMessage = createSubscriptionMessage(instruments, SUBSCRIBE_REQUEST_CODE);
-                        session.sendMessage(new TextMessage(subscriptionMessage));
-                        log.info("Subscribed to {} instruments", instruments.size());
-                    } else {
-                        log.warn("WebSocket session not open for subscription");
-                        reconnect();
-                    }
-                } catch (IOException e) {
-                    log.error("Failed to subscribe: {}", e.getMessage(), e);
-                    reconnect();
-                }
-            });
+            subscribe(instruments, FeedMode.FULL);
+        }
+
+        /**
+         * Records the instruments as wanted in the mode; the coalescer sends the change within
+         * its window.
+         */
+        public void subscribe(List<InstrumentInfo> instruments, FeedMode mode) {
+            for (InstrumentInfo instrument : instruments) {
+                int index = instrumentRegistry.register(instrument);
+                subscriptions.put(index, mode);
+                coalescer.subscribe(index, instrument, mode);
+            }
         }
 
         public void unsubscribe(List<InstrumentInfo> instruments) {
-            if(instruments.isEmpty())
+            unsubscribe(instruments, FeedMode.FULL);
+        }
+
+        /**
+         * Records the instruments as no longer wanted, whatever mode they were subscribed in.
+         */
+        public void unsubscribe(List<InstrumentInfo> instruments, FeedMode mode) {
+            for (InstrumentInfo instrument : instruments) {
+                int index = instrumentRegistry.register(instrument);
+                subscriptions.remove(index);
+                coalescer.unsubscribe(index, instrument);
+            }
+        }
+
+        /**
+         * Drops the instruments from this connection's set at once, so neither the pool nor a
+         * reconnect counts them here any more, but keeps them on the socket for the overlap while
+         * another connection takes over.
+         */
+        void handOff(List<InstrumentInfo> instruments, long overlapMs) {
+            if (instruments.isEmpty())
                 return;
+            int[] indexes = new int[instruments.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = instrumentRegistry.register(instruments.get(i));
+                subscriptions.remove(indexes[i]);
+            }
             executor.execute(() -> {
                 try {
-                    WebSocketSession session = handler.getSession();
-                    if (session != null && session.isOpen()) {
-                        String unsubscribeMessage = createSubscriptionMessage(instruments, UNSUBSCRIBE_REQUEST_CODE);
-                        session.sendMessage(new TextMessage(unsubscribeMessage));
-                        log.info("Unsubscribed from {} instruments", instruments.size());
-                    } else {
-                        log.warn("WebSocket session not open for unsubscription");
-                        reconnect();
-                    }
-                } catch (IOException e) {
-                    log.error("Failed to unsubscribe: {}", e.getMessage(), e);
-                    reconnect();
+                    Thread.sleep(overlapMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < indexes.length; i++) {
+                    // Placed back here during the overlap
+                    if (subscriptions.containsKey(indexes[i])) continue;
+                    coalescer.unsubscribe(indexes[i], instruments.get(i));
                 }
             });
         }
 
-        private String createSubscriptionMessage(List<InstrumentInfo> instruments, int requestCode) {
-            String instrumentListJson = instruments.stream()
-                    .map(instrument -> String.format(
-                            "{\"ExchangeSegment\": \"%s\", \"SecurityId\": \"%s\"}",
-                            instrument.getExchangeSegment(),
-                            instrument.getInstrumentToken()
-                    ))
-                    .collect(Collectors.joining(","));
-            return "{\"RequestCode\": %d, \"InstrumentCount\": %d, \"InstrumentList\": [%s]}"
-                    .formatted(requestCode, instruments.size(), instrumentListJson);
+        /**
+         * @return whether this connection's ticks of the instrument should be passed on; false
+         * for the losing side of a migration overlap
+         */
+        boolean owns(int instrument) {
+            return ownership.accept(instrument, id);
+        }
+
+        /**
+         * Unsubscribes and subscribes again straight away, bypassing the coalescer's window, to
+         * make the feed restart instruments that went quiet.
+         */
+        void resubscribe(List<InstrumentInfo> instruments, FeedMode mode) {
+            if (instruments.isEmpty())
+                return;
+            executor.execute(() -> coalescer.resubscribe(instruments, mode));
+        }
+
+        /**
+         * Called by the handler once a socket is open. A new socket carries nothing, so the
+         * connection's whole instrument set is sent again, paced with every other connection's.
+         */
+        void onConnectionEstablished() {
+            int restoring = coalescer.onConnectionEstablished(subscriptions, this::instrumentInfo);
+            if (restoring == 0) return;
+            awaitingFirstTickSinceNanos = System.nanoTime();
+            log.info("Restoring {} subscriptions on {}", restoring, name);
+        }
+
+        private InstrumentInfo instrumentInfo(int index) {
+            return instrumentRegistry.instrument(index).info();
+        }
+
+        /**
+         * @return instrument index to subscribed mode; a live view
+         */
+        public Map<Integer, FeedMode> getSubscriptions() {
+            return Collections.unmodifiableMap(subscriptions);
+        }
+
+        public List<Subject.SubscriberStats> getObserverStats() {
+            return handler.getObserverStats();
+        }
+
+        /**
+         * @return per-stage tick latency percentiles, keyed by stage
+         */
+        public Map<String, LatencyHistogram.Summary> getLatency() {
+            return handler.getLatency().summaries();
         }
 
-        public int getLoad() {
-            return 1; // Could track active subscriptions if needed
+        public int getSubscriptionCount() {
+            return subscriptions.size();
         }
 
         public void restart() {
@@ -189,32 +608,53 @@ public class DhanConnectionPool {
             executor.execute(manager::start);
         }
 
-        private JsonObject createPingPayload(WebSocketSession session) {
-            JsonObject payload = new JsonObject();
-            payload.add("sessionId", new JsonPrimitive(session.getId()));
-            payload.add("pingedAt", new JsonPrimitive(LocalDateTime.now().toString()));
-            return payload;
-        }
-        private void startHeartbeat() {
-            heartbeatExecutor.scheduleAtFixedRate(() -> {
-                WebSocketSession session = handler.getSession();
-                if (isConnected && session != null && session.isOpen()) {
-                    try {
-                        JsonObject payloadJson = createPingPayload(session); //  Maximum allowed payload of 125 bytes only
-                        ByteBuffer payload = ByteBuffer.wrap(payloadJson.toString().getBytes());
-                        session.sendMessage(new PingMessage(payload));
-                        lastPingSent = LocalDateTime.now(); // Update last ping sent
-                        log.debug("Sent heartbeat ping at {}", lastPingSent);
-                        log.debug("Sent heartbeat ping");
-                    } catch (Exception e) {
-                        log.warn("Heartbeat failed: {}", e.getMessage());
-                        reconnect();
-                    }
-                }
-            }, HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        private void heartbeat() {
+            if (closed) return;
+            liveness.schedule(this::heartbeat, heartbeatIntervalMs);
+            WebSocketSession session = handler.getSession();
+            if (isConnected && session != null && session.isOpen()) {
+                // Sending may block on a slow socket, so it leaves the shared timer thread
+                executor.execute(this::sendPing);
+            }
+        }
+
+        // One heartbeat runs per interval, so the payload buffer is never shared
+        private void sendPing() {
+            long sentNanos = System.nanoTime();
+            pingPayload.clear();
+            pingPayload.putLong(0, sentNanos);
+            try {
+                coalescer.send(new PingMessage(pingPayload));
+                lastPingSentNanos = sentNanos;
+                liveness.schedule(() -> checkPong(sentNanos), pongTimeoutMs);
+                log.debug("Sent heartbeat ping on {}", name);
+            } catch (Exception e) {
+                log.warn("Heartbeat failed on {}: {}", name, e.getMessage());
+                reconnect();
+            }
+        }
+
+        private void checkPong(long sentNanos) {
+            // A later ping has been sent, or the pong or any frame arrived after this one
+            if (closed || lastPingSentNanos != sentNanos) return;
+            if (lastPongReceivedNanos != 0 && lastPongReceivedNanos - sentNanos >= 0) return;
+            if (lastReceivedNanos.get() - sentNanos > 0) return;
+            log.warn("No pong or frame on {} within {}ms of a ping; reconnecting", name, pongTimeoutMs);
+            reconnect();
+        }
+
+        /**
+         * Stops the socket and its feed pipeline for good; no reconnect follows.
+         */
+        public void close() {
+            closed = true;
+            manager.stop();
+            handler.close();
+            meterRegistry.remove(firstTickTimer);
         }
 
         void reconnect() {
+            if (closed) return;
             if (reconnectAttempts >= MAX_RECONNECT_ATTEMPTS) {
                 log.error("Max reconnect attempts ({}) reached. Giving up.", MAX_RECONNECT_ATTEMPTS);
                 return;
@@ -0,0 +1,84 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Last tick time and typical tick interval per instrument, kept in primitive arrays indexed by
+ * {@link com.traders.exchange.domain.InstrumentRegistry} index. Feed readers record every tick
+ * with two opaque stores and no allocation; {@link DhanStaleFeedDetector} samples the values.
+ * <p>
+ * Storage is split into fixed-size chunks that never move, so a reader only synchronizes the
+ * first time an instrument in a new chunk ticks.
+ */
+@Component
+public class DhanFeedActivity {
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    // Each instrument takes two longs: last tick nanos, then mean interval nanos
+    private static final int CHUNK_LENGTH = 2 << CHUNK_BITS;
+    // Weight of the newest interval in the moving average, as a shift: 1/8
+    private static final int AVERAGE_SHIFT = 3;
+
+    private volatile long[][] chunks = new long[1][];
+
+    /**
+     * Records a tick. Each instrument is expected to be fed by one reader at a time.
+     *
+     * @param receivedNanos {@link System#nanoTime()} at which the tick's frame arrived
+     */
+    public void onTick(int instrument, long receivedNanos) {
+        long[] chunk = chunk(instrument >>> CHUNK_BITS);
+        int slot = (instrument & CHUNK_MASK) << 1;
+        long last = (long) LONGS.getOpaque(chunk, slot);
+        if (last != 0) {
+            long interval = Math.max(0, receivedNanos - last);
+            long mean = (long) LONGS.getOpaque(chunk, slot + 1);
+            LONGS.setOpaque(chunk, slot + 1, mean == 0 ? interval : mean + ((interval - mean) >> AVERAGE_SHIFT));
+        }
+        LONGS.setOpaque(chunk, slot, receivedNanos);
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of the instrument's last tick, or 0 if it never ticked
+     */
+    public long lastTickNanos(int instrument) {
+        long[] chunk = existingChunk(instrument >>> CHUNK_BITS);
+        return chunk == null ? 0 : (long) LONGS.getOpaque(chunk, (instrument & CHUNK_MASK) << 1);
+    }
+
+    /**
+     * @return moving average of the time between the instrument's ticks, or 0 until it has
+     * ticked twice
+     */
+    public long meanIntervalNanos(int instrument) {
+        long[] chunk = existingChunk(instrument >>> CHUNK_BITS);
+        return chunk == null ? 0 : (long) LONGS.getOpaque(chunk, ((instrument & CHUNK_MASK) << 1) + 1);
+    }
+
+    private long[] existingChunk(int index) {
+        long[][] current = chunks;
+        return index < current.length ? current[index] : null;
+    }
+
+    private long[] chunk(int index) {
+        long[] chunk = existingChunk(index);
+        return chunk != null ? chunk : allocate(index);
+    }
+
+    private synchronized long[] allocate(int index) {
+        long[][] current = chunks;
+        if (index >= current.length) {
+            current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+        }
+        if (current[index] == null) {
+            current[index] = new long[CHUNK_LENGTH];
+        }
+        chunks = current;
+        return current[index];
+    }
+}
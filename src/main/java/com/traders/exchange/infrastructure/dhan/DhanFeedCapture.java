@@ -0,0 +1,264 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Optional tap that records raw feed frames, as received, to memory-mapped capture segments for
+ * {@link DhanFeedReplayer}. Enabled by {@code exchange.dhan.capture-dir}.
+ * <p>
+ * Every connection records through a {@link Writer} of its own into {@code <capture-dir>/<name>},
+ * so readers of different connections never contend, and a writer is only ever called by its
+ * connection's reader thread, so appends take no lock. Each record is
+ * {@code [int length][long receive nanoTime][frame bytes]}; a zero length ends a segment.
+ * Segments are {@code capture-<seq>.bin} files of {@code capture-segment-mb} each. The next
+ * segment is created and mapped in the background while the current one fills, and the full one
+ * is flushed and closed there too, so a roll-over only swaps buffers on the reader thread. With
+ * {@code capture-max-segments} set, the oldest segments of each connection are deleted so the
+ * capture keeps a rolling window.
+ */
+@Slf4j
+@Component
+public class DhanFeedCapture implements AutoCloseable {
+    static final String SEGMENT_PREFIX = "capture-";
+    static final String SEGMENT_SUFFIX = ".bin";
+    static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    /** A mapped buffer is indexed by int, so a segment must stay below 2 GiB. */
+    static final int MAX_SEGMENT_MB = Integer.MAX_VALUE >> 20;
+    private static final int PAGE_BYTES = 4096;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    // Creates, maps, flushes and deletes segments off the connections' reader threads
+    private final ExecutorService files;
+
+    public DhanFeedCapture(DhanConfig config) {
+        this.directory = config.captureDir() == null || config.captureDir().isBlank()
+                ? null : Path.of(config.captureDir());
+        if (config.captureSegmentMb() > MAX_SEGMENT_MB) {
+            throw new IllegalArgumentException("exchange.dhan.capture-segment-mb must be at most "
+                    + MAX_SEGMENT_MB + ", was " + config.captureSegmentMb());
+        }
+        this.segmentBytes = (int) ((long) config.captureSegmentMb() << 20);
+        this.maxSegments = config.captureMaxSegments();
+        if (directory == null) {
+            this.files = null;
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create capture directory " + directory + ": " + e.getMessage(), e);
+        }
+        this.files = Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("dhan-feed-capture").factory());
+        log.info("Capturing raw feed frames to {}", directory);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * @param connectionName names the directory under {@code capture-dir} the connection records to
+     * @return a writer for that connection's reader thread alone
+     */
+    public Writer writer(String connectionName) {
+        if (directory == null) {
+            throw new IllegalStateException("Feed capture is not configured");
+        }
+        Path connectionDirectory = directory.resolve(connectionName);
+        try {
+            Files.createDirectories(connectionDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create capture directory " + connectionDirectory + ": " + e.getMessage(), e);
+        }
+        List<Long> existing = sequences(connectionDirectory);
+        return new Writer(connectionDirectory, existing.isEmpty() ? 0 : existing.getLast());
+    }
+
+    /**
+     * Stops the background file work once segments already handed to it are closed.
+     */
+    @Override
+    public void close() {
+        if (files != null) {
+            files.shutdown();
+        }
+    }
+
+    private record Segment(long sequence, FileChannel channel, MappedByteBuffer buffer) {}
+
+    /**
+     * Records one connection's frames. Only the connection's reader appends; a roll-over and
+     * {@link #close()} lock the writer, as the connection may be closed from another thread.
+     */
+    public final class Writer implements AutoCloseable {
+        private final Path directory;
+        private long sequence;
+        private Segment current;
+        private CompletableFuture<Segment> next;
+        private volatile boolean closed;
+
+        private Writer(Path directory, long lastSequence) {
+            this.directory = directory;
+            this.sequence = lastSequence;
+            this.next = prepare(lastSequence + 1);
+        }
+
+        /**
+         * Appends the frame between the payload's position and limit without moving either.
+         */
+        public void append(ByteBuffer payload, long receivedNanos) {
+            if (closed) return;
+            int length = payload.remaining();
+            // Keep room for the zero length that terminates the segment
+            if (current == null || current.buffer().remaining() < RECORD_HEADER_BYTES + length + Integer.BYTES) {
+                if (!roll()) return;
+            }
+            MappedByteBuffer segment = current.buffer();
+            segment.putInt(length).putLong(receivedNanos);
+            int position = segment.position();
+            segment.put(position, payload, payload.position(), length);
+            segment.position(position + length);
+        }
+
+        /**
+         * Flushes and closes the segment being written; no further frames are recorded.
+         */
+        @Override
+        public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            // Left in place, as the reader may still be finishing a frame in it; the mapping
+            // outlives the channel, so the write is harmless
+            Segment full = current;
+            CompletableFuture<Segment> unused = next;
+            next = null;
+            submit(() -> {
+                if (full != null) release(full);
+                // The prepared segment holds no frames, so it is not left behind for replays
+                Segment empty = unused == null ? null : unused.exceptionally(e -> null).join();
+                if (empty != null) {
+                    release(empty);
+                    delete(empty.sequence());
+                }
+            });
+        }
+
+        /**
+         * @return false once the writer is closed
+         */
+        private synchronized boolean roll() {
+            if (closed) return false;
+            Segment full = current;
+            long wanted = sequence + 1;
+            Segment prepared = next == null ? null : next.exceptionally(e -> {
+                log.warn("Preparing capture segment {} in {} failed: {}", wanted, directory, e.getMessage());
+                return null;
+            }).join();
+            // Normally ready long before the current segment fills; opened here only if preparing failed
+            current = prepared != null ? prepared : open(wanted);
+            sequence = current.sequence();
+            next = prepare(sequence + 1);
+            if (full != null) {
+                submit(() -> {
+                    release(full);
+                    trim();
+                });
+            }
+            return true;
+        }
+
+        private CompletableFuture<Segment> prepare(long segmentSequence) {
+            try {
+                return CompletableFuture.supplyAsync(() -> open(segmentSequence), files);
+            } catch (RejectedExecutionException e) {
+                return null;
+            }
+        }
+
+        private void submit(Runnable task) {
+            try {
+                files.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; finish the work on the caller rather than leave segments open
+                task.run();
+            }
+        }
+
+        private Segment open(long segmentSequence) {
+            Path path = file(directory, segmentSequence);
+            try {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                // Fault every page in now, so the reader's first write to each does not
+                for (int page = 0; page < segmentBytes; page += PAGE_BYTES) {
+                    buffer.put(page, (byte) 0);
+                }
+                return new Segment(segmentSequence, channel, buffer);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open capture segment " + path + ": " + e.getMessage(), e);
+            }
+        }
+
+        private void release(Segment segment) {
+            try {
+                segment.buffer().force();
+                segment.channel().close();
+            } catch (IOException e) {
+                log.warn("Failed to close capture segment {} in {}: {}", segment.sequence(), directory, e.getMessage());
+            }
+        }
+
+        private void trim() {
+            if (maxSegments <= 0) return;
+            List<Long> all = sequences(directory);
+            // The prepared segment counts as one of the kept ones
+            for (int i = 0; i < all.size() - maxSegments - 1; i++) {
+                delete(all.get(i));
+            }
+        }
+
+        private void delete(long segmentSequence) {
+            try {
+                Files.deleteIfExists(file(directory, segmentSequence));
+            } catch (IOException e) {
+                log.warn("Failed to delete capture segment {} in {}: {}", segmentSequence, directory, e.getMessage());
+            }
+        }
+    }
+
+    static Path file(Path directory, long fileSequence) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", fileSequence) + SEGMENT_SUFFIX);
+    }
+
+    static List<Long> sequences(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list capture directory " + directory + ": " + e.getMessage(), e);
+        }
+    }
+}
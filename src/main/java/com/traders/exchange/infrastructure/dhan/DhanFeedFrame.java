@@ -0,0 +1,257 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.common.model.MarketQuotes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Flyweight over one binary frame of the Dhan live feed. {@link #wrap(ByteBuffer)} points the
+ * reader at a frame without copying it and every accessor reads its field with an absolute,
+ * little-endian get, so decoding a tick allocates nothing and leaves the buffer position alone.
+ * <p>
+ * Frame layout: an 8 byte header (response code, message length, exchange segment, security id)
+ * followed by a payload that depends on the response code.
+ */
+public final class DhanFeedFrame {
+    public static final byte TICKER_PACKET = 2;
+    public static final byte QUOTE_PACKET = 4;
+    public static final byte FULL_PACKET = 8;
+    public static final byte DISCONNECT = 50;
+
+    public static final int HEADER_LENGTH = 8;
+    public static final int TICKER_PACKET_LENGTH = 16;
+    public static final int QUOTE_PACKET_LENGTH = 50;
+    public static final int FULL_PACKET_LENGTH = 162;
+    public static final int DISCONNECT_PACKET_LENGTH = 10;
+    public static final int DEPTH_LEVELS = 5;
+
+    // Full packet payload offsets, from the start of the frame
+    private static final int LTP = 8;
+    private static final int LTQ = 12;
+    private static final int LTT = 14;
+    private static final int ATP = 18;
+    private static final int VOLUME = 22;
+    private static final int TOTAL_SELL_QTY = 26;
+    private static final int TOTAL_BUY_QTY = 30;
+    private static final int OPEN_INTEREST = 34;
+    private static final int OPEN = 46;
+    private static final int CLOSE = 50;
+    private static final int HIGH = 54;
+    private static final int LOW = 58;
+    private static final int DEPTH = 62;
+    private static final int DEPTH_LEVEL_LENGTH = 20;
+    private static final int DISCONNECT_CODE = 8;
+
+    // Ticker packet: LTP at 8 as above, then the trade time
+    private static final int TICKER_LTT = 12;
+    // Quote packet: same as the full packet up to TOTAL_BUY_QTY, then OHLC without open interest
+    private static final int QUOTE_OPEN = 34;
+    private static final int QUOTE_CLOSE = 38;
+    private static final int QUOTE_HIGH = 42;
+    private static final int QUOTE_LOW = 46;
+
+    private ByteBuffer buffer;
+    private int base;
+
+    /**
+     * Points the reader at the frame starting at the buffer's current position. The buffer is
+     * switched to little-endian, which is what the feed sends.
+     */
+    public DhanFeedFrame wrap(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.base = buffer.position();
+        return this;
+    }
+
+    public byte responseCode() {
+        return buffer.get(base);
+    }
+
+    public int messageLength() {
+        return buffer.getShort(base + 1) & 0xFFFF;
+    }
+
+    public int exchangeSegment() {
+        return buffer.get(base + 3) & 0xFF;
+    }
+
+    public int securityId() {
+        return buffer.getInt(base + 4);
+    }
+
+    public int remaining() {
+        return buffer.limit() - base;
+    }
+
+    public short disconnectCode() {
+        return buffer.getShort(base + DISCONNECT_CODE);
+    }
+
+    public double lastTradedPrice() {
+        return buffer.getFloat(base + LTP);
+    }
+
+    /**
+     * Decodes a ticker packet into the slot. Fields the packet does not carry are zeroed.
+     */
+    public void readTicker(DhanQuoteSlot slot) {
+        slot.clear();
+        slot.securityId = securityId();
+        slot.exchangeSegment = exchangeSegment();
+        slot.lastTradedPrice = buffer.getFloat(base + LTP);
+        slot.lastTradeTime = buffer.getInt(base + TICKER_LTT);
+    }
+
+    /**
+     * Decodes a quote packet into the slot. Open interest and depth are zeroed.
+     */
+    public void readQuote(DhanQuoteSlot slot) {
+        slot.clear();
+        readTrade(slot);
+        slot.open = buffer.getFloat(base + QUOTE_OPEN);
+        slot.close = buffer.getFloat(base + QUOTE_CLOSE);
+        slot.high = buffer.getFloat(base + QUOTE_HIGH);
+        slot.low = buffer.getFloat(base + QUOTE_LOW);
+    }
+
+    /**
+     * Decodes a full packet into the slot, overwriting everything it held before.
+     */
+    public void readFull(DhanQuoteSlot slot) {
+        slot.hasDepth = true;
+        readTrade(slot);
+        slot.openInterest = buffer.getInt(base + OPEN_INTEREST);
+        slot.open = buffer.getFloat(base + OPEN);
+        slot.close = buffer.getFloat(base + CLOSE);
+        slot.high = buffer.getFloat(base + HIGH);
+        slot.low = buffer.getFloat(base + LOW);
+        for (int level = 0, offset = base + DEPTH; level < DEPTH_LEVELS; level++, offset += DEPTH_LEVEL_LENGTH) {
+            slot.bidQuantity[level] = buffer.getInt(offset);
+            slot.askQuantity[level] = buffer.getInt(offset + 4);
+            slot.bidOrders[level] = buffer.getShort(offset + 8);
+            slot.askOrders[level] = buffer.getShort(offset + 10);
+            slot.bidPrice[level] = buffer.getFloat(offset + 12);
+            slot.askPrice[level] = buffer.getFloat(offset + 16);
+        }
+    }
+
+    // Fields the quote and full packets share, at the same offsets
+    private void readTrade(DhanQuoteSlot slot) {
+        slot.securityId = securityId();
+        slot.exchangeSegment = exchangeSegment();
+        slot.lastTradedPrice = buffer.getFloat(base + LTP);
+        slot.lastTradedQuantity = buffer.getShort(base + LTQ);
+        slot.lastTradeTime = buffer.getInt(base + LTT);
+        slot.averageTradePrice = buffer.getFloat(base + ATP);
+        slot.volume = buffer.getInt(base + VOLUME);
+        slot.totalSellQuantity = buffer.getInt(base + TOTAL_SELL_QTY);
+        slot.totalBuyQuantity = buffer.getInt(base + TOTAL_BUY_QTY);
+    }
+
+    /**
+     * Writes the slot as a full packet, zeros included for fields it was not sent, so ticker and
+     * quote ticks can be turned into {@link MarketQuotes} by the same parser as full ones.
+     *
+     * @param target little-endian buffer of at least {@link #FULL_PACKET_LENGTH} bytes
+     * @return number of bytes written
+     */
+    public static int encodeFull(DhanQuoteSlot slot, ByteBuffer target) {
+        writeTrade(slot, FULL_PACKET, FULL_PACKET_LENGTH, target)
+                .putInt(OPEN_INTEREST, slot.openInterest)
+                .putInt(OPEN_INTEREST + 4, 0)
+                .putInt(OPEN_INTEREST + 8, 0)
+                .putFloat(OPEN, (float) slot.open)
+                .putFloat(CLOSE, (float) slot.close)
+                .putFloat(HIGH, (float) slot.high)
+                .putFloat(LOW, (float) slot.low);
+        for (int level = 0, offset = DEPTH; level < DEPTH_LEVELS; level++, offset += DEPTH_LEVEL_LENGTH) {
+            target.putInt(offset, slot.bidQuantity[level])
+                    .putInt(offset + 4, slot.askQuantity[level])
+                    .putShort(offset + 8, (short) slot.bidOrders[level])
+                    .putShort(offset + 10, (short) slot.askOrders[level])
+                    .putFloat(offset + 12, (float) slot.bidPrice[level])
+                    .putFloat(offset + 16, (float) slot.askPrice[level]);
+        }
+        return FULL_PACKET_LENGTH;
+    }
+
+    /**
+     * Writes the slot's trade price and time as a ticker packet.
+     *
+     * @param target little-endian buffer of at least {@link #TICKER_PACKET_LENGTH} bytes
+     * @return number of bytes written
+     */
+    public static int encodeTicker(DhanQuoteSlot slot, ByteBuffer target) {
+        writeHeader(TICKER_PACKET, TICKER_PACKET_LENGTH, slot.exchangeSegment, slot.securityId, target)
+                .putFloat(LTP, (float) slot.lastTradedPrice)
+                .putInt(TICKER_LTT, slot.lastTradeTime);
+        return TICKER_PACKET_LENGTH;
+    }
+
+    /**
+     * Writes the slot as a quote packet, without open interest and depth.
+     *
+     * @param target little-endian buffer of at least {@link #QUOTE_PACKET_LENGTH} bytes
+     * @return number of bytes written
+     */
+    public static int encodeQuote(DhanQuoteSlot slot, ByteBuffer target) {
+        writeTrade(slot, QUOTE_PACKET, QUOTE_PACKET_LENGTH, target)
+                .putFloat(QUOTE_OPEN, (float) slot.open)
+                .putFloat(QUOTE_CLOSE, (float) slot.close)
+                .putFloat(QUOTE_HIGH, (float) slot.high)
+                .putFloat(QUOTE_LOW, (float) slot.low);
+        return QUOTE_PACKET_LENGTH;
+    }
+
+    /**
+     * Writes a disconnect packet carrying the reason code.
+     *
+     * @param target little-endian buffer of at least {@link #DISCONNECT_PACKET_LENGTH} bytes
+     * @return number of bytes written
+     */
+    public static int encodeDisconnect(short reasonCode, ByteBuffer target) {
+        writeHeader(DISCONNECT, DISCONNECT_PACKET_LENGTH, 0, 0, target)
+                .putShort(DISCONNECT_CODE, reasonCode);
+        return DISCONNECT_PACKET_LENGTH;
+    }
+
+    private static ByteBuffer writeHeader(byte code, int length, int exchangeSegment, int securityId, ByteBuffer target) {
+        return target.put(0, code)
+                .putShort(1, (short) length)
+                .put(3, (byte) exchangeSegment)
+                .putInt(4, securityId);
+    }
+
+    private static ByteBuffer writeTrade(DhanQuoteSlot slot, byte code, int length, ByteBuffer target) {
+        return writeHeader(code, length, slot.exchangeSegment, slot.securityId, target)
+                .putFloat(LTP, (float) slot.lastTradedPrice)
+                .putShort(LTQ, (short) slot.lastTradedQuantity)
+                .putInt(LTT, slot.lastTradeTime)
+                .putFloat(ATP, (float) slot.averageTradePrice)
+                .putInt(VOLUME, slot.volume)
+                .putInt(TOTAL_SELL_QTY, slot.totalSellQuantity)
+                .putInt(TOTAL_BUY_QTY, slot.totalBuyQuantity);
+    }
+
+    /**
+     * Copies the wrapped frame into {@code target}, truncated to its length.
+     *
+     * @return number of bytes copied
+     */
+    public int copyTo(byte[] target) {
+        int length = Math.min(remaining(), target.length);
+        buffer.get(base, target, 0, length);
+        return length;
+    }
+
+    /**
+     * Builds a {@link MarketQuotes} from a copied frame for consumers that need the object
+     * form, such as the Redis cache and STOMP fan-out.
+     */
+    public static MarketQuotes toMarketQuotes(byte[] frame, int length, String instrumentId) {
+        ByteBuffer payload = ByteBuffer.wrap(frame, HEADER_LENGTH, length - HEADER_LENGTH)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        return MarketQuotes.parseFromByteBuffer(payload, instrumentId);
+    }
+}
@@ -0,0 +1,104 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.exchange.util.IntervalLatencyHistogram;
+import com.traders.exchange.util.LatencyHistogram;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from a frame's receipt on one connection to each point a tick reaches downstream. Every
+ * stage has its own {@link LatencyHistogram}, recorded on the thread that finishes the stage,
+ * plus an {@link IntervalLatencyHistogram} behind the exported percentiles so they follow the
+ * last minute rather than the whole life of the connection.
+ */
+public final class DhanFeedLatency implements AutoCloseable {
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final long PERCENTILE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public enum Stage {
+        /**
+         * The tick has been handed to order matching. Matching itself runs later on the
+         * instrument's own drain, so this is not the time until orders were filled.
+         */
+        DISPATCH,
+        /** The quote has been sent to STOMP subscribers. */
+        STOMP,
+        /** The quote has been written to the Redis cache. */
+        CACHE;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<Stage, IntervalLatencyHistogram> recent = new EnumMap<>(Stage.class);
+    private final List<Meter> meters = new ArrayList<>();
+    private MeterRegistry meterRegistry;
+
+    public DhanFeedLatency() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+            recent.put(stage, new IntervalLatencyHistogram(PERCENTILE_INTERVAL_NANOS));
+        }
+    }
+
+    /**
+     * Records the time since {@code receivedNanos}, a {@link System#nanoTime()} taken when the
+     * frame arrived.
+     */
+    public void record(Stage stage, long receivedNanos) {
+        long now = System.nanoTime();
+        histograms.get(stage).record(now - receivedNanos);
+        recent.get(stage).record(now - receivedNanos, now);
+    }
+
+    /**
+     * @return percentiles per stage since creation, keyed by lower-case stage name
+     */
+    public Map<String, LatencyHistogram.Summary> summaries() {
+        Map<String, LatencyHistogram.Summary> summaries = new LinkedHashMap<>();
+        histograms.forEach((stage, histogram) -> summaries.put(stage.tag, histogram.summary()));
+        return summaries;
+    }
+
+    /**
+     * Exports each stage as a {@code dhan.feed.latency} timer and its percentiles over the last
+     * completed minute as {@code dhan.feed.latency.percentile} gauges, tagged with the connection name.
+     */
+    public synchronized void bindTo(MeterRegistry registry, String connection) {
+        this.meterRegistry = registry;
+        histograms.forEach((stage, histogram) -> {
+            meters.add(FunctionTimer.builder("dhan.feed.latency", histogram,
+                            LatencyHistogram::count, LatencyHistogram::totalNanos, TimeUnit.NANOSECONDS)
+                    .description("Time from feed frame receipt to the end of the stage")
+                    .tags("connection", connection, "stage", stage.tag)
+                    .register(registry));
+            for (double percentile : PERCENTILES) {
+                meters.add(Gauge.builder("dhan.feed.latency.percentile", recent.get(stage),
+                                h -> h.completed().valueAtPercentile(percentile) / 1e9)
+                        .baseUnit("seconds")
+                        .tags("connection", connection, "stage", stage.tag, "percentile", String.valueOf(percentile))
+                        .register(registry));
+            }
+        });
+    }
+
+    /**
+     * Removes the meters registered by {@link #bindTo}.
+     */
+    @Override
+    public synchronized void close() {
+        if (meterRegistry != null) {
+            meters.forEach(meterRegistry::remove);
+        }
+        meters.clear();
+    }
+}
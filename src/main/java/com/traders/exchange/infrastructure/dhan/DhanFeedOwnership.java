@@ -0,0 +1,97 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Which connection's ticks are passed on for each instrument while it is being moved between
+ * connections, kept in primitive arrays indexed by
+ * {@link com.traders.exchange.domain.InstrumentRegistry} index.
+ * <p>
+ * An instrument carried by one socket has no owner and every tick passes. While
+ * {@link DhanConnectionPool#migrate} has it subscribed on two sockets, the old connection owns it
+ * and the new one is its claimant: the claimant's first tick takes ownership, after which the old
+ * socket's ticks are dropped, so downstream sees neither a gap nor duplicates.
+ */
+@Component
+public class DhanFeedOwnership {
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    // Each instrument takes two ints: owner connection id, then claimant connection id
+    private static final int CHUNK_LENGTH = 2 << CHUNK_BITS;
+    static final int NONE = 0;
+
+    private volatile int[][] chunks = new int[1][];
+
+    /**
+     * Hot-path check made for every tick; never locks or allocates.
+     *
+     * @return whether a tick of the instrument from the connection should be passed on
+     */
+    public boolean accept(int instrument, int connection) {
+        int[] chunk = existingChunk(instrument >>> CHUNK_BITS);
+        if (chunk == null) return true;
+        int slot = (instrument & CHUNK_MASK) << 1;
+        int owner = (int) INTS.getAcquire(chunk, slot);
+        if (owner == NONE || owner == connection) return true;
+        if ((int) INTS.getAcquire(chunk, slot + 1) != connection) return false;
+        // The claimant's first tick; losing the race means another of its ticks already won
+        INTS.compareAndSet(chunk, slot, owner, connection);
+        return true;
+    }
+
+    /**
+     * Starts moving the instrument: ticks from {@code from} keep flowing until {@code to} delivers.
+     */
+    public void handOver(int instrument, int from, int to) {
+        int[] chunk = chunk(instrument >>> CHUNK_BITS);
+        int slot = (instrument & CHUNK_MASK) << 1;
+        INTS.setRelease(chunk, slot + 1, to);
+        INTS.setRelease(chunk, slot, from);
+    }
+
+    /**
+     * Clears any hand-over, as the instrument is now carried by a single socket.
+     */
+    public void clear(int instrument) {
+        int[] chunk = existingChunk(instrument >>> CHUNK_BITS);
+        if (chunk == null) return;
+        int slot = (instrument & CHUNK_MASK) << 1;
+        INTS.setRelease(chunk, slot, NONE);
+        INTS.setRelease(chunk, slot + 1, NONE);
+    }
+
+    /**
+     * @return id of the connection whose ticks pass, or {@link #NONE} if every socket's do
+     */
+    public int owner(int instrument) {
+        int[] chunk = existingChunk(instrument >>> CHUNK_BITS);
+        return chunk == null ? NONE : (int) INTS.getAcquire(chunk, (instrument & CHUNK_MASK) << 1);
+    }
+
+    private int[] existingChunk(int index) {
+        int[][] current = chunks;
+        return index < current.length ? current[index] : null;
+    }
+
+    private int[] chunk(int index) {
+        int[] chunk = existingChunk(index);
+        return chunk != null ? chunk : allocate(index);
+    }
+
+    private synchronized int[] allocate(int index) {
+        int[][] current = chunks;
+        if (index >= current.length) {
+            current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+        }
+        if (current[index] == null) {
+            current[index] = new int[CHUNK_LENGTH];
+        }
+        chunks = current;
+        return current[index];
+    }
+}
@@ -0,0 +1,88 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.common.model.MarketQuotes;
+import com.traders.exchange.domain.OrderMatchingPort;
+import com.traders.exchange.util.ring.RingBuffer;
+import com.traders.exchange.util.ring.WaitStrategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hands decoded ticks from one connection's WebSocket reader to its consumers through a
+ * preallocated {@link RingBuffer}. The reader publishes each tick once and returns; two fixed
+ * stages then read every tick in feed order on their own threads:
+ * <ul>
+ *   <li>matching, straight behind the reader,</li>
+ *   <li>fan-out, which builds the {@link MarketQuotes} once and hands it to the client and cache
+ *   consumers.</li>
+ * </ul>
+ * Both consumers only queue the quote for their own observers, so they share a stage rather than
+ * each keeping a thread per connection. A full ring makes the reader wait for the slower stage
+ * rather than queue without bound.
+ */
+@Slf4j
+public class DhanFeedPipeline implements AutoCloseable {
+    private static final AtomicInteger PIPELINE_IDS = new AtomicInteger();
+
+    private final RingBuffer<DhanTickEvent> ring;
+    private final RingBuffer.Stage<DhanTickEvent> matching;
+    private final RingBuffer.Stage<DhanTickEvent> fanOut;
+
+    /**
+     * A quote handed to fan-out and cache consumers, with its instrument index and the
+     * {@link System#nanoTime()} its frame was received at so they can record their latency.
+     */
+    public record TimedQuote(MarketQuotes quote, int instrument, long receivedNanos) {}
+
+    public DhanFeedPipeline(int ringSize, WaitStrategy waitStrategy, OrderMatchingPort orderMatchingPort,
+                            DhanFeedLatency latency, Consumer<TimedQuote> fanOutConsumer,
+                            Consumer<TimedQuote> cacheConsumer) {
+        this.ring = new RingBuffer<>(ringSize, DhanTickEvent::new, waitStrategy);
+        String prefix = "dhan-feed-" + PIPELINE_IDS.incrementAndGet() + "-";
+        this.matching = ring.stage(prefix + "matching", ring.cursor(), (event, sequence) -> {
+            // Ticker and quote packets have no depth; matching them at bid = ask = LTP would fill
+            // limit orders at prices nobody quoted
+            if (!event.hasDepth) return;
+            orderMatchingPort.onPriceUpdate(event.instrument, event.lastPrice, event.bestBid, event.bestAsk);
+            latency.record(DhanFeedLatency.Stage.DISPATCH, event.receivedNanos);
+        });
+        this.fanOut = ring.stage(prefix + "fanout", ring.cursor(), (event, sequence) -> {
+            TimedQuote quote = new TimedQuote(event.toMarketQuotes(), event.instrument, event.receivedNanos);
+            fanOutConsumer.accept(quote);
+            cacheConsumer.accept(quote);
+        });
+        ring.addGatingStages(matching, fanOut);
+        Thread.Builder threads = Thread.ofPlatform().daemon();
+        matching.start(threads.factory());
+        fanOut.start(threads.factory());
+        log.info("Started feed pipeline {} with a ring of {} ticks", prefix, ring.capacity());
+    }
+
+    /**
+     * Publishes the tick the frame and slot currently hold. Only the connection's reader thread
+     * may call this.
+     *
+     * @param receivedNanos {@link System#nanoTime()} at which the frame was received
+     */
+    public void publish(DhanFeedFrame frame, DhanQuoteSlot quote, int instrument, String instrumentId,
+                        long receivedNanos) {
+        long sequence = ring.next();
+        ring.get(sequence).set(frame, quote, instrument, instrumentId, receivedNanos);
+        ring.publish(sequence);
+    }
+
+    /**
+     * @return ticks published but not yet through every stage
+     */
+    public long backlog() {
+        return ring.backlog();
+    }
+
+    @Override
+    public void close() {
+        matching.halt();
+        fanOut.halt();
+    }
+}
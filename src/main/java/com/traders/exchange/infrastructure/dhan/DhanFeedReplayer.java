@@ -0,0 +1,248 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.common.model.MarketQuotes;
+import com.traders.exchange.domain.InstrumentRegistry;
+import com.traders.exchange.domain.OrderMatchingPort;
+import com.traders.exchange.domain.TransactionCommand;
+import com.traders.exchange.domain.TransactionResult;
+import com.traders.exchange.util.LatencyHistogram;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushes frames recorded by {@link DhanFeedCapture} back through a {@link DhanWebSocketHandler},
+ * so decode, matching and fan-out run exactly as they do live, without a Dhan connection.
+ * Frames are paced by their recorded receive times divided by the speed factor; a speed of zero
+ * or less replays as fast as the pipeline accepts them.
+ * <p>
+ * Replayed ticks go to the matching port and response handler the caller passes, never to the
+ * live ones, so a replay cannot fill real orders or reach Redis and STOMP clients. Without them
+ * ticks are decoded and fanned out and then discarded, which measures the pipeline alone. Each
+ * replay registers its instruments in a registry of its own, so it never adds entries to the live
+ * one.
+ * <p>
+ * Replays requested through {@link #start} are confined to the configured capture directory and
+ * run one at a time on a thread of their own; {@link #status()} reports the latest one.
+ */
+@Slf4j
+@Component
+public class DhanFeedReplayer {
+    private static final long DRAIN_POLL_NANOS = 1_000_000;
+
+    private final DhanConfig config;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("dhan-feed-replay").factory());
+    private volatile ReplayStatus latest;
+
+    /**
+     * @param latency per-stage latency from each frame's replay to the end of the stage
+     */
+    public record ReplayResult(long frames, long bytes, long elapsedMs, long framesPerSecond,
+                               Map<String, LatencyHistogram.Summary> latency) {}
+
+    /**
+     * @param result the replay's result once it has finished, otherwise null
+     * @param error  why the replay failed, otherwise null
+     */
+    public record ReplayStatus(String directory, double speed, boolean running, ReplayResult result,
+                               String error) {}
+
+    public DhanFeedReplayer(DhanConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Starts replaying a directory under the configured capture directory in the background.
+     *
+     * @param directory capture directory relative to {@code capture-dir}, e.g. the connection name {@code dhan-1}
+     * @return the status of the replay just started
+     * @throws IllegalArgumentException if the directory resolves outside the capture directory
+     * @throws IllegalStateException    if capture is not configured or a replay is already running
+     */
+    public synchronized ReplayStatus start(String directory, double speed) {
+        Path resolved = resolveCapture(directory);
+        if (latest != null && latest.running()) {
+            throw new IllegalStateException("A replay of " + latest.directory() + " is still running");
+        }
+        ReplayStatus started = new ReplayStatus(resolved.toString(), speed, true, null, null);
+        latest = started;
+        CompletableFuture.supplyAsync(() -> replay(resolved, speed), executor)
+                .whenComplete((result, error) -> latest = error == null
+                        ? new ReplayStatus(started.directory(), speed, false, result, null)
+                        : new ReplayStatus(started.directory(), speed, false, null, describe(error)));
+        return started;
+    }
+
+    /**
+     * @return the running or most recent replay, or null if none was started
+     */
+    public ReplayStatus status() {
+        return latest;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Replays the captures into sinks that discard every tick.
+     *
+     * @see #replay(Path, double, InstrumentRegistry, OrderMatchingPort, DhanResponseHandler)
+     */
+    public ReplayResult replay(Path directory, double speed) {
+        return replay(directory, speed, new InstrumentRegistry(), new DiscardingMatchingPort(),
+                new DiscardingResponseHandler());
+    }
+
+    /**
+     * Replays every capture segment in the directory in order and returns once the pipeline has
+     * drained.
+     *
+     * @param speed              1 for real time, N for N times faster, 0 or less for maximum speed
+     * @param instrumentRegistry indexes the replayed instruments; must not be the live registry
+     * @param matchingPort       receives the replayed ticks, e.g. an order matching instance of the replay's own
+     * @param responseHandler    receives the replayed quotes for STOMP and the cache
+     */
+    public ReplayResult replay(Path directory, double speed, InstrumentRegistry instrumentRegistry,
+                               OrderMatchingPort matchingPort, DhanResponseHandler responseHandler) {
+        List<Long> segments = DhanFeedCapture.sequences(directory);
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("No capture segments in " + directory);
+        }
+        // A handler of its own, with no capture tap and its own activity record, so the replay is
+        // neither recorded again nor mistaken for live ticks
+        DhanWebSocketHandler handler = new DhanWebSocketHandler(
+                responseHandler, matchingPort, instrumentRegistry, config, null, new DhanFeedActivity());
+        Map<String, LatencyHistogram.Summary> latency;
+        long frames = 0;
+        long bytes = 0;
+        long firstRecordedNanos = Long.MIN_VALUE;
+        long started = System.nanoTime();
+        try {
+            for (long sequence : segments) {
+                Path path = DhanFeedCapture.file(directory, sequence);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    segment.order(ByteOrder.LITTLE_ENDIAN);
+                    while (segment.remaining() >= DhanFeedCapture.RECORD_HEADER_BYTES) {
+                        int length = segment.getInt();
+                        if (length == 0) break;
+                        long recordedNanos = segment.getLong();
+                        if (firstRecordedNanos == Long.MIN_VALUE) firstRecordedNanos = recordedNanos;
+                        if (speed > 0) {
+                            awaitUntil(started + (long) ((recordedNanos - firstRecordedNanos) / speed));
+                        }
+                        int position = segment.position();
+                        // The handler reads between position and limit, so no copy is made
+                        segment.limit(position + length);
+                        handler.onFrame(segment, System.nanoTime());
+                        segment.limit(segment.capacity()).position(position + length);
+                        frames++;
+                        bytes += length;
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to replay capture segment " + path + ": " + e.getMessage(), e);
+                }
+            }
+            while (handler.getPipelineBacklog() > 0) {
+                LockSupport.parkNanos(DRAIN_POLL_NANOS);
+            }
+            latency = handler.getLatency().summaries();
+        } finally {
+            handler.close();
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - started);
+        ReplayResult result = new ReplayResult(frames, bytes, elapsedNanos / 1_000_000,
+                frames * 1_000_000_000L / elapsedNanos, latency);
+        log.info("Replayed {} frames ({} bytes) from {} at speed {} in {}ms, {} frames/s",
+                frames, bytes, directory, speed, result.elapsedMs(), result.framesPerSecond());
+        return result;
+    }
+
+    private Path resolveCapture(String directory) {
+        if (config.captureDir() == null || config.captureDir().isBlank()) {
+            throw new IllegalStateException("Feed capture is not configured, so there is nothing to replay");
+        }
+        Path root = Path.of(config.captureDir()).toAbsolutePath().normalize();
+        Path resolved = root.resolve(directory).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new IllegalArgumentException("Replay directory must be inside " + root);
+        }
+        try {
+            // Links must not lead out of the capture directory either
+            if (!resolved.toRealPath().startsWith(root.toRealPath())) {
+                throw new IllegalArgumentException("Replay directory must be inside " + root);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Replay directory " + resolved + " is not readable: " + e.getMessage(), e);
+        }
+        return resolved;
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        log.warn("Feed replay failed: {}", cause.getMessage(), cause);
+        return cause.getMessage();
+    }
+
+    private static void awaitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static final class DiscardingMatchingPort implements OrderMatchingPort {
+        @Override
+        public void executeTransaction(TransactionCommand command) {
+            throw new UnsupportedOperationException("A feed replay takes no orders");
+        }
+
+        @Override
+        public List<TransactionResult> executeTransactions(List<TransactionCommand> commands) {
+            throw new UnsupportedOperationException("A feed replay takes no orders");
+        }
+
+        @Override
+        public void onPriceUpdate(String instrumentId, MarketQuotes quote) {
+        }
+
+        @Override
+        public void onPriceUpdate(int instrument, double lastPrice, double bestBid, double bestAsk) {
+        }
+    }
+
+    private static final class DiscardingResponseHandler extends DhanResponseHandler {
+        DiscardingResponseHandler() {
+            super(null, null);
+        }
+
+        @Override
+        public void publishPriceUpdate(MarketQuotes quote) {
+        }
+
+        @Override
+        public void publishPriceUpdate(int instrument, MarketQuotes quote) {
+        }
+
+        @Override
+        public void cachePriceUpdate(MarketQuotes quote) {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.exchange.util.TimerWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One timer for the liveness work of every Dhan connection: heartbeat pings, pong timeouts and
+ * feed silence checks. Tasks sit on a {@link TimerWheel} advanced by a single daemon thread, so
+ * liveness adds no thread per socket; each connection's feed pipeline still has threads of its own.
+ * <p>
+ * Tasks run on that thread, after the wheel's lock is released, and must be short; anything that
+ * may block on a socket or take the connection pool's lock is handed to another executor.
+ */
+@Slf4j
+@Component
+public class DhanLivenessScheduler {
+    private static final long TICK_MS = 100;
+    // 64^3 ticks of 100ms reach past seven hours
+    private static final int WHEEL_LEVELS = 3;
+
+    private final TimerWheel<Runnable> wheel = new TimerWheel<>(TICK_MS, WHEEL_LEVELS, System.currentTimeMillis());
+    private final ScheduledExecutorService driver = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("dhan-liveness").factory());
+
+    @PostConstruct
+    public void start() {
+        driver.scheduleAtFixedRate(this::advance, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        driver.shutdownNow();
+    }
+
+    /**
+     * Runs the task once, on the first tick at least {@code delayMs} from now.
+     */
+    public void schedule(Runnable task, long delayMs) {
+        wheel.schedule(task, System.currentTimeMillis() + delayMs);
+    }
+
+    /**
+     * Runs the task every {@code intervalMs} for as long as the scheduler runs; a run that
+     * throws does not stop later ones.
+     */
+    public void every(long intervalMs, Runnable task) {
+        long first = System.currentTimeMillis() + intervalMs;
+        wheel.schedule(new Runnable() {
+            // Deadlines stay on the first one's grid, so rounding up to a tick does not add up
+            private long deadline = first;
+
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    deadline += intervalMs;
+                    wheel.schedule(this, deadline);
+                }
+            }
+        }, first);
+    }
+
+    private void advance() {
+        try {
+            wheel.advance(System.currentTimeMillis(), this::runAll);
+        } catch (RuntimeException e) {
+            log.error("Liveness tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void runAll(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Liveness task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
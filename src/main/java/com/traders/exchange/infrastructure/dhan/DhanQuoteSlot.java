@@ -0,0 +1,152 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, primitive-only holder for one decoded feed tick. A slot is owned by a single reader
+ * and overwritten by every frame it decodes, so its values are only valid until the next
+ * {@code DhanFeedFrame.read*} call. Ticker and quote packets leave the fields they do not carry
+ * at zero.
+ */
+public final class DhanQuoteSlot {
+    int securityId;
+    int exchangeSegment;
+    double lastTradedPrice;
+    int lastTradedQuantity;
+    int lastTradeTime;
+    double averageTradePrice;
+    int volume;
+    int totalSellQuantity;
+    int totalBuyQuantity;
+    int openInterest;
+    double open;
+    double close;
+    double high;
+    double low;
+    final int[] bidQuantity = new int[DhanFeedFrame.DEPTH_LEVELS];
+    final int[] askQuantity = new int[DhanFeedFrame.DEPTH_LEVELS];
+    final int[] bidOrders = new int[DhanFeedFrame.DEPTH_LEVELS];
+    final int[] askOrders = new int[DhanFeedFrame.DEPTH_LEVELS];
+    final double[] bidPrice = new double[DhanFeedFrame.DEPTH_LEVELS];
+    final double[] askPrice = new double[DhanFeedFrame.DEPTH_LEVELS];
+    boolean hasDepth;
+
+    void clear() {
+        lastTradedQuantity = 0;
+        lastTradeTime = 0;
+        averageTradePrice = 0;
+        volume = 0;
+        totalSellQuantity = 0;
+        totalBuyQuantity = 0;
+        openInterest = 0;
+        open = 0;
+        close = 0;
+        high = 0;
+        low = 0;
+        Arrays.fill(bidQuantity, 0);
+        Arrays.fill(askQuantity, 0);
+        Arrays.fill(bidOrders, 0);
+        Arrays.fill(askOrders, 0);
+        Arrays.fill(bidPrice, 0);
+        Arrays.fill(askPrice, 0);
+        hasDepth = false;
+    }
+
+    public int securityId() {
+        return securityId;
+    }
+
+    public int exchangeSegment() {
+        return exchangeSegment;
+    }
+
+    public double lastTradedPrice() {
+        return lastTradedPrice;
+    }
+
+    public int lastTradedQuantity() {
+        return lastTradedQuantity;
+    }
+
+    /**
+     * @return last trade time in epoch seconds as sent by the feed
+     */
+    public int lastTradeTime() {
+        return lastTradeTime;
+    }
+
+    public double averageTradePrice() {
+        return averageTradePrice;
+    }
+
+    public int volume() {
+        return volume;
+    }
+
+    public int totalSellQuantity() {
+        return totalSellQuantity;
+    }
+
+    public int totalBuyQuantity() {
+        return totalBuyQuantity;
+    }
+
+    public int openInterest() {
+        return openInterest;
+    }
+
+    public double open() {
+        return open;
+    }
+
+    public double close() {
+        return close;
+    }
+
+    public double high() {
+        return high;
+    }
+
+    public double low() {
+        return low;
+    }
+
+    /**
+     * @return true if the tick came from a full packet and carries market depth
+     */
+    public boolean hasDepth() {
+        return hasDepth;
+    }
+
+    public double bestBid() {
+        return bidPrice[0];
+    }
+
+    public double bestAsk() {
+        return askPrice[0];
+    }
+
+    public double bidPrice(int level) {
+        return bidPrice[level];
+    }
+
+    public double askPrice(int level) {
+        return askPrice[level];
+    }
+
+    public int bidQuantity(int level) {
+        return bidQuantity[level];
+    }
+
+    public int askQuantity(int level) {
+        return askQuantity[level];
+    }
+
+    public int bidOrders(int level) {
+        return bidOrders[level];
+    }
+
+    public int askOrders(int level) {
+        return askOrders[level];
+    }
+}
@@ -2,19 +2,24 @@ package com.traders.exchange.infrastructure.dhan;
 
 import com.traders.common.model.MarketDetailsRequest;
 import com.traders.exchange.application.ExchangeFacade;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/dhan")
 public class DhanResource {
     private final ExchangeFacade facade;
+    private final DhanFeedReplayer feedReplayer;
 
-    public DhanResource(ExchangeFacade facade) {
+    public DhanResource(ExchangeFacade facade, DhanFeedReplayer feedReplayer) {
         this.facade = facade;
+        this.feedReplayer = feedReplayer;
     }
 
     @PostMapping("/subscribe")
@@ -22,4 +27,27 @@ public class DhanResource {
         facade.subscribe( request);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Starts replaying a directory under the configured capture directory through a pipeline of
+     * its own whose ticks are discarded. The replay runs in the background; poll
+     * {@code GET /replay} for its throughput and latency.
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<DhanFeedReplayer.ReplayStatus> replay(@RequestParam String directory,
+                                                                @RequestParam(defaultValue = "0") double speed) {
+        try {
+            return ResponseEntity.accepted().body(feedReplayer.start(directory, speed));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/replay")
+    public ResponseEntity<DhanFeedReplayer.ReplayStatus> replayStatus() {
+        DhanFeedReplayer.ReplayStatus status = feedReplayer.status();
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
 }
\ No newline at end of file
@@ -23,7 +23,28 @@ public class DhanResponseHandler {
     }
 
     public void handlePriceUpdate(MarketQuotes quote) {
+        publishPriceUpdate(quote);
+        cachePriceUpdate(quote);
+    }
+
+    /**
+     * Sends the quote to subscribed STOMP sessions.
+     */
+    public void publishPriceUpdate(MarketQuotes quote) {
         priceUpdateManager.sendPriceUpdate(quote.getInstrumentName(), quote);
+    }
+
+    /**
+     * Sends the quote to subscribed STOMP sessions, for a feed tick whose instrument index is known.
+     */
+    public void publishPriceUpdate(int instrument, MarketQuotes quote) {
+        priceUpdateManager.sendPriceUpdate(instrument, quote);
+    }
+
+    /**
+     * Writes the quote to the Redis stock cache.
+     */
+    public void cachePriceUpdate(MarketQuotes quote) {
         redisService.addStockCache(quote.getInstrumentName(), quote);
     }
 
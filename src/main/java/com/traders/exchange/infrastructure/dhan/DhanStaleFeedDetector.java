@@ -0,0 +1,207 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.common.model.InstrumentInfo;
+import com.traders.exchange.domain.FeedMode;
+import com.traders.exchange.domain.InstrumentRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds instruments and connections whose feed has gone quiet while the socket still looks
+ * connected, and restarts them.
+ * <p>
+ * An instrument is stale once it has been silent for {@code stale-tick-factor} times its own mean
+ * tick interval, and never before {@code stale-min-silence-ms}; it is then resubscribed on its
+ * connection, with the silence needed before the next attempt doubling each time it stays quiet,
+ * until it is given up on for the day. Instruments that have never ticked are left alone, as
+ * there is nothing to judge their rate by. A connection with subscriptions that has received
+ * nothing for {@code connection-silence-ms} has its instruments migrated to a standby, to
+ * healthy connections or to a connection opened for them, and is then reconnected, backing off
+ * the same way while it stays silent.
+ * <p>
+ * A quiet feed is only suspicious while the market is open, so nothing is checked outside
+ * {@code market-open} to {@code market-close} on weekdays, and silence is counted from the open at
+ * the earliest. Exchange holidays are not known here; on those days the backoff keeps the
+ * restarts few. Dead sockets are found at any hour by the pong timeout of each connection.
+ */
+@Slf4j
+@Component
+public class DhanStaleFeedDetector {
+    private static final int MAX_BACKOFF_SHIFT = 6;
+    // Resubscribing an instrument that stays silent through this many attempts is pointless
+    private static final int MAX_RESUBSCRIBE_ATTEMPTS = MAX_BACKOFF_SHIFT + 1;
+    private static final long MARKET_CLOSED = Long.MIN_VALUE;
+
+    private final DhanConnectionPool connectionPool;
+    private final DhanFeedActivity activity;
+    private final InstrumentRegistry instrumentRegistry;
+    private final long checkIntervalMs;
+    private final int tickFactor;
+    private final long minSilenceNanos;
+    private final long connectionSilenceNanos;
+    private final DhanLivenessScheduler liveness;
+    private final LocalTime marketOpen;
+    private final LocalTime marketClose;
+    private final ZoneId marketZone;
+    private final AtomicInteger staleInstruments = new AtomicInteger();
+    private final AtomicInteger silentConnections = new AtomicInteger();
+    private final Counter resubscriptions;
+    private final Counter silentReconnects;
+    private final Counter migratedInstruments;
+    // Only touched by the liveness thread
+    private final Map<Integer, Resubscription> resubscribed = new HashMap<>();
+    private final Map<String, Resubscription> silenceReconnects = new HashMap<>();
+    // Migration takes the pool's lock and may wait on a connection opening, so it runs off the
+    // liveness thread, one recovery at a time
+    private final ExecutorService recovery = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("dhan-stale-recovery").factory());
+
+    private record Resubscription(long atNanos, int attempts) {}
+
+    public DhanStaleFeedDetector(DhanConnectionPool connectionPool, DhanFeedActivity activity,
+                                 InstrumentRegistry instrumentRegistry, DhanLivenessScheduler liveness,
+                                 DhanConfig config, MeterRegistry meterRegistry) {
+        this.connectionPool = connectionPool;
+        this.liveness = liveness;
+        this.activity = activity;
+        this.instrumentRegistry = instrumentRegistry;
+        this.checkIntervalMs = config.staleCheckIntervalMs();
+        this.tickFactor = config.staleTickFactor();
+        this.minSilenceNanos = TimeUnit.MILLISECONDS.toNanos(config.staleMinSilenceMs());
+        this.connectionSilenceNanos = TimeUnit.MILLISECONDS.toNanos(config.connectionSilenceMs());
+        this.marketOpen = LocalTime.parse(config.marketOpen());
+        this.marketClose = LocalTime.parse(config.marketClose());
+        this.marketZone = ZoneId.of(config.marketZone());
+        meterRegistry.gauge("dhan.feed.stale.instruments", staleInstruments);
+        meterRegistry.gauge("dhan.feed.stale.connections", silentConnections);
+        this.resubscriptions = meterRegistry.counter("dhan.feed.stale.resubscriptions");
+        this.silentReconnects = meterRegistry.counter("dhan.feed.stale.reconnects");
+        this.migratedInstruments = meterRegistry.counter("dhan.feed.stale.migrated.instruments");
+    }
+
+    @PostConstruct
+    public void start() {
+        liveness.every(checkIntervalMs, this::check);
+    }
+
+    @PreDestroy
+    public void stop() {
+        recovery.shutdownNow();
+    }
+
+    void check() {
+        try {
+            long now = System.nanoTime();
+            long open = marketOpenNanos(now);
+            int stale = 0;
+            int silent = 0;
+            if (open == MARKET_CLOSED) {
+                // Backoffs start afresh each session
+                resubscribed.clear();
+                silenceReconnects.clear();
+            } else {
+                for (DhanConnectionPool.DhanConnection connection : connectionPool.getConnections()) {
+                    if (!connection.isConnected() || connection.getSubscriptions().isEmpty()) continue;
+                    long silence = Math.min(connection.nanosSinceLastReceived(now), now - open);
+                    if (silence > connectionSilenceNanos) {
+                        silent++;
+                        reconnectSilent(connection, now, silence);
+                    } else {
+                        silenceReconnects.remove(connection.getName());
+                        stale += resubscribeStale(connection, now, open);
+                    }
+                }
+            }
+            staleInstruments.set(stale);
+            silentConnections.set(silent);
+        } catch (RuntimeException e) {
+            log.error("Stale feed check failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // nanoTime of today's market open, or MARKET_CLOSED outside market hours
+    private long marketOpenNanos(long now) {
+        ZonedDateTime wallClock = ZonedDateTime.now(marketZone);
+        DayOfWeek day = wallClock.getDayOfWeek();
+        LocalTime time = wallClock.toLocalTime();
+        if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY
+                || time.isBefore(marketOpen) || !time.isBefore(marketClose)) {
+            return MARKET_CLOSED;
+        }
+        return now - Duration.between(marketOpen, time).toNanos();
+    }
+
+    private void reconnectSilent(DhanConnectionPool.DhanConnection connection, long now, long silence) {
+        Resubscription previous = silenceReconnects.get(connection.getName());
+        // Give the previous reconnect a silence window to bring ticks back, doubling while it stays quiet
+        if (previous != null
+                && now - previous.atNanos() < connectionSilenceNanos << Math.min(previous.attempts() - 1, MAX_BACKOFF_SHIFT)) {
+            return;
+        }
+        int attempts = previous == null ? 1 : previous.attempts() + 1;
+        log.warn("Connection {} received nothing for {}ms with {} subscriptions; migrating and reconnecting (attempt {})",
+                connection.getName(), TimeUnit.NANOSECONDS.toMillis(silence),
+                connection.getSubscriptions().size(), attempts);
+        silenceReconnects.put(connection.getName(), new Resubscription(now, attempts));
+        silentReconnects.increment();
+        recovery.execute(() -> {
+            try {
+                migratedInstruments.increment(connectionPool.migrate(connection));
+            } catch (RuntimeException e) {
+                log.error("Migrating instruments off {} failed: {}", connection.getName(), e.getMessage(), e);
+            }
+            connection.reconnect();
+        });
+    }
+
+    private int resubscribeStale(DhanConnectionPool.DhanConnection connection, long now, long open) {
+        int stale = 0;
+        Map<FeedMode, List<InstrumentInfo>> due = new EnumMap<>(FeedMode.class);
+        for (Map.Entry<Integer, FeedMode> subscription : connection.getSubscriptions().entrySet()) {
+            int instrument = subscription.getKey();
+            long lastTick = activity.lastTickNanos(instrument);
+            if (lastTick == 0) continue;
+            long threshold = Math.max(minSilenceNanos, activity.meanIntervalNanos(instrument) * tickFactor);
+            if (Math.min(now - lastTick, now - open) <= threshold) {
+                resubscribed.remove(instrument);
+                continue;
+            }
+            stale++;
+            Resubscription previous = resubscribed.get(instrument);
+            if (previous != null && (previous.attempts() >= MAX_RESUBSCRIBE_ATTEMPTS
+                    || now - previous.atNanos() <= threshold << Math.min(previous.attempts(), MAX_BACKOFF_SHIFT))) {
+                continue;
+            }
+            InstrumentInfo info = instrumentRegistry.instrument(instrument).info();
+            if (info == null) continue;
+            due.computeIfAbsent(subscription.getValue(), mode -> new ArrayList<>()).add(info);
+            resubscribed.put(instrument, new Resubscription(now, previous == null ? 1 : previous.attempts() + 1));
+        }
+        due.forEach((mode, instruments) -> {
+            log.warn("Resubscribing {} silent instruments in {} mode on {}", instruments.size(), mode,
+                    connection.getName());
+            resubscriptions.increment(instruments.size());
+            connection.resubscribe(instruments, mode);
+        });
+        return stale;
+    }
+}
@@ -0,0 +1,264 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.common.model.InstrumentInfo;
+import com.traders.exchange.domain.FeedMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Collects one connection's subscribe and unsubscribe intents for a short window and sends only
+ * the difference between what is wanted and what the socket has already been sent.
+ * <p>
+ * The latest intent per instrument wins, so a subscribe and unsubscribe of the same instrument
+ * within the window cancel out, and repeated subscribes of a subscribed instrument send nothing.
+ * Changes go out as unsubscribes first, then subscribes, in messages of at most
+ * {@value #MAX_INSTRUMENTS_PER_MESSAGE} instruments built in one reused buffer, each waiting its
+ * turn on the pool's {@link DhanSubscriptionPacer}.
+ * <p>
+ * Subscription sends are serialized among themselves, but the session itself is only locked for
+ * each write, so heartbeats and other messages never queue behind a restore waiting on the pacer.
+ */
+@Slf4j
+final class DhanSubscriptionCoalescer {
+    /** Instruments the feed accepts in one subscription message. */
+    static final int MAX_INSTRUMENTS_PER_MESSAGE = 100;
+
+    private record Change(int instrument, InstrumentInfo info) {}
+
+    private final String connectionName;
+    private final Supplier<WebSocketSession> session;
+    private final Executor executor;
+    private final DhanSubscriptionPacer pacer;
+    private final long windowMs;
+    private final Runnable onSendFailure;
+
+    // Latest wanted mode per instrument since the last flush; a null mode means unsubscribed
+    private Map<Integer, FeedMode> pendingModes = new HashMap<>();
+    private Map<Integer, InstrumentInfo> pendingInfo = new HashMap<>();
+    private boolean flushScheduled;
+
+    // Guarded by subscriptionLock, held while pacing: what the socket has been sent and the message buffer
+    private final Object subscriptionLock = new Object();
+    private final Map<Integer, FeedMode> sent = new HashMap<>();
+    // Guarded by sendLock, held for one write only: the session, which takes one writer at a time
+    private final Object sendLock = new Object();
+    private final StringBuilder message = new StringBuilder(MAX_INSTRUMENTS_PER_MESSAGE * 56);
+
+    DhanSubscriptionCoalescer(String connectionName, Supplier<WebSocketSession> session, Executor executor,
+                              DhanSubscriptionPacer pacer, long windowMs, Runnable onSendFailure) {
+        this.connectionName = connectionName;
+        this.session = session;
+        this.executor = executor;
+        this.pacer = pacer;
+        this.windowMs = windowMs;
+        this.onSendFailure = onSendFailure;
+    }
+
+    synchronized void subscribe(int instrument, InstrumentInfo info, FeedMode mode) {
+        pendingModes.put(instrument, mode);
+        pendingInfo.put(instrument, info);
+        scheduleFlush();
+    }
+
+    synchronized void unsubscribe(int instrument, InstrumentInfo info) {
+        pendingModes.put(instrument, null);
+        pendingInfo.put(instrument, info);
+        scheduleFlush();
+    }
+
+    /**
+     * Sends an unsubscribe and a subscribe for instruments the socket already carries, right
+     * away, to make the feed restart them.
+     */
+    void resubscribe(List<InstrumentInfo> instruments, FeedMode mode) {
+        List<Change> changes = new ArrayList<>(instruments.size());
+        instruments.forEach(info -> changes.add(new Change(-1, info)));
+        synchronized (subscriptionLock) {
+            WebSocketSession current = session.get();
+            if (current == null || !current.isOpen()) return;
+            try {
+                send(current, DhanConnectionPool.unsubscribeRequestCode(mode), changes, null);
+                send(current, DhanConnectionPool.subscribeRequestCode(mode), changes, null);
+                log.info("Resubscribed to {} instruments in {} mode on {}", instruments.size(), mode, connectionName);
+            } catch (IOException e) {
+                log.error("Failed to resubscribe on {}: {}", connectionName, e.getMessage(), e);
+                onSendFailure.run();
+            }
+        }
+    }
+
+    /**
+     * Forgets what the previous socket was sent, as a new socket starts with no subscriptions,
+     * and queues the connection's whole instrument set to be sent again along with the intents
+     * held back while no socket was open.
+     *
+     * @param wanted instrument index to mode, as the connection should carry them
+     * @param infos  looks up the instrument to send for an index
+     * @return number of instruments queued
+     */
+    int onConnectionEstablished(Map<Integer, FeedMode> wanted, IntFunction<InstrumentInfo> infos) {
+        synchronized (subscriptionLock) {
+            sent.clear();
+        }
+        synchronized (this) {
+            // Pending intents are at least as new as the connection's set
+            wanted.forEach((instrument, mode) -> {
+                if (pendingModes.containsKey(instrument)) return;
+                InstrumentInfo info = infos.apply(instrument);
+                if (info == null) return;
+                pendingModes.put(instrument, mode);
+                pendingInfo.put(instrument, info);
+            });
+            if (!pendingModes.isEmpty()) scheduleFlush();
+            return pendingModes.size();
+        }
+    }
+
+    /**
+     * Sends a message between subscription messages, as a session takes one writer at a time.
+     * Never waits on the pacer, only on a subscription message already being written.
+     */
+    void send(WebSocketMessage<?> message) throws IOException {
+        synchronized (sendLock) {
+            WebSocketSession current = session.get();
+            if (current == null || !current.isOpen()) throw new IOException("Session is not open");
+            current.sendMessage(message);
+        }
+    }
+
+    synchronized int pending() {
+        return pendingModes.size();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        executor.execute(() -> {
+            try {
+                Thread.sleep(windowMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        });
+    }
+
+    void flush() {
+        Map<Integer, FeedMode> modes;
+        Map<Integer, InstrumentInfo> infos;
+        synchronized (this) {
+            modes = pendingModes;
+            infos = pendingInfo;
+            pendingModes = new HashMap<>();
+            pendingInfo = new HashMap<>();
+            flushScheduled = false;
+        }
+        if (modes.isEmpty()) return;
+        synchronized (subscriptionLock) {
+            Map<FeedMode, List<Change>> unsubscribes = new EnumMap<>(FeedMode.class);
+            Map<FeedMode, List<Change>> subscribes = new EnumMap<>(FeedMode.class);
+            modes.forEach((instrument, wanted) -> {
+                FeedMode current = sent.get(instrument);
+                if (wanted == current) return;
+                Change change = new Change(instrument, infos.get(instrument));
+                // A mode change drops the old mode before taking the new one
+                if (current != null) unsubscribes.computeIfAbsent(current, mode -> new ArrayList<>()).add(change);
+                if (wanted != null) subscribes.computeIfAbsent(wanted, mode -> new ArrayList<>()).add(change);
+            });
+            if (unsubscribes.isEmpty() && subscribes.isEmpty()) return;
+            WebSocketSession current = session.get();
+            if (current == null || !current.isOpen()) {
+                // Held until the socket is open again
+                requeue(modes, infos);
+                return;
+            }
+            try {
+                int messages = 0;
+                for (Map.Entry<FeedMode, List<Change>> entry : unsubscribes.entrySet()) {
+                    messages += send(current, DhanConnectionPool.unsubscribeRequestCode(entry.getKey()), entry.getValue(), null);
+                }
+                for (Map.Entry<FeedMode, List<Change>> entry : subscribes.entrySet()) {
+                    messages += send(current, DhanConnectionPool.subscribeRequestCode(entry.getKey()), entry.getValue(), entry.getKey());
+                }
+                log.info("Sent {} unsubscribes and {} subscribes in {} messages on {}",
+                        count(unsubscribes), count(subscribes), messages, connectionName);
+            } catch (IOException e) {
+                log.warn("Subscription changes on {} not sent: {}", connectionName, e.getMessage());
+                requeue(modes, infos);
+                onSendFailure.run();
+            }
+        }
+    }
+
+    // Intents made since the failed flush are newer, so they are kept over the requeued ones
+    private synchronized void requeue(Map<Integer, FeedMode> modes, Map<Integer, InstrumentInfo> infos) {
+        modes.forEach((instrument, mode) -> {
+            if (!pendingInfo.containsKey(instrument)) {
+                pendingModes.put(instrument, mode);
+                pendingInfo.put(instrument, infos.get(instrument));
+            }
+        });
+    }
+
+    /**
+     * Sends the changes in chunks and records each chunk as sent once it is written. Each chunk
+     * is built and paced before the session is locked, and the lock is released after the write.
+     *
+     * @param subscribedMode mode the changes leave the instruments in, or null if unsubscribed;
+     *                       ignored for changes without an instrument index
+     * @return number of messages sent
+     */
+    private int send(WebSocketSession current, int requestCode, List<Change> changes, FeedMode subscribedMode)
+            throws IOException {
+        int messages = 0;
+        for (int from = 0; from < changes.size(); from += MAX_INSTRUMENTS_PER_MESSAGE) {
+            int to = Math.min(changes.size(), from + MAX_INSTRUMENTS_PER_MESSAGE);
+            TextMessage chunk = new TextMessage(build(requestCode, changes, from, to));
+            pacer.await();
+            synchronized (sendLock) {
+                current.sendMessage(chunk);
+            }
+            messages++;
+            for (int i = from; i < to; i++) {
+                int instrument = changes.get(i).instrument();
+                if (instrument < 0) continue;
+                if (subscribedMode == null) {
+                    sent.remove(instrument);
+                } else {
+                    sent.put(instrument, subscribedMode);
+                }
+            }
+        }
+        return messages;
+    }
+
+    private String build(int requestCode, List<Change> changes, int from, int to) {
+        message.setLength(0);
+        message.append("{\"RequestCode\": ").append(requestCode)
+                .append(", \"InstrumentCount\": ").append(to - from)
+                .append(", \"InstrumentList\": [");
+        for (int i = from; i < to; i++) {
+            InstrumentInfo info = changes.get(i).info();
+            if (i > from) message.append(',');
+            message.append("{\"ExchangeSegment\": \"").append(info.getExchangeSegment())
+                    .append("\", \"SecurityId\": \"").append(info.getInstrumentToken()).append("\"}");
+        }
+        return message.append("]}").toString();
+    }
+
+    private static int count(Map<FeedMode, List<Change>> changes) {
+        return changes.values().stream().mapToInt(List::size).sum();
+    }
+}
@@ -0,0 +1,34 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spaces subscription messages out across every connection of a pool, so sockets restoring
+ * thousands of instruments at once after an outage send at a steady rate the vendor tolerates
+ * rather than in one burst.
+ */
+final class DhanSubscriptionPacer {
+    private final long intervalNanos;
+    // Earliest System.nanoTime() at which the next message may go
+    private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+
+    DhanSubscriptionPacer(long intervalMs) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+    }
+
+    /**
+     * Reserves the next send slot and parks until it comes round.
+     */
+    void await() {
+        long now = System.nanoTime();
+        long slot = nextSlotNanos.getAndUpdate(next -> Math.max(next, now) + intervalNanos);
+        long start = Math.max(slot, now);
+        for (long wait = start - now; wait > 0; wait = start - System.nanoTime()) {
+            // Shutting down; sending early beats spinning
+            if (Thread.currentThread().isInterrupted()) return;
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
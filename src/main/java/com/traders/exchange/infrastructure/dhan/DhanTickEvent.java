@@ -0,0 +1,57 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.traders.common.model.MarketQuotes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Ring buffer entry for one decoded tick. Entries are allocated once with the ring and
+ * overwritten in place by the feed thread; stages read them in sequence order.
+ */
+public final class DhanTickEvent {
+    int instrument;
+    String instrumentId;
+    double lastPrice;
+    double bestBid;
+    double bestAsk;
+    boolean hasDepth;
+    long receivedNanos;
+    final byte[] frame = new byte[DhanFeedFrame.FULL_PACKET_LENGTH];
+    private final ByteBuffer frameBuffer = ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+    int frameLength;
+
+    void set(DhanFeedFrame source, DhanQuoteSlot slot, int instrument, String instrumentId, long receivedNanos) {
+        this.instrument = instrument;
+        this.instrumentId = instrumentId;
+        this.lastPrice = slot.lastTradedPrice();
+        this.hasDepth = slot.hasDepth();
+        this.bestBid = slot.bestBid();
+        this.bestAsk = slot.bestAsk();
+        this.receivedNanos = receivedNanos;
+        this.frameLength = slot.hasDepth() ? source.copyTo(frame) : DhanFeedFrame.encodeFull(slot, frameBuffer);
+    }
+
+    MarketQuotes toMarketQuotes() {
+        return DhanFeedFrame.toMarketQuotes(frame, frameLength, instrumentId);
+    }
+
+    public int instrument() {
+        return instrument;
+    }
+
+    public String instrumentId() {
+        return instrumentId;
+    }
+
+    /**
+     * @return whether the tick came from a full packet and carries a real best bid and ask
+     */
+    public boolean hasDepth() {
+        return hasDepth;
+    }
+
+    public long receivedNanos() {
+        return receivedNanos;
+    }
+}
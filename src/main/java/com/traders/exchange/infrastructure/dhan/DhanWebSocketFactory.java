@@ -1,33 +1,63 @@
 // com.traders.exchange.infrastructure.dhan.DhanWebSocketFactory
 package com.traders.exchange.infrastructure.dhan;
 
+import com.traders.exchange.domain.InstrumentRegistry;
 import com.traders.exchange.orders.service.OrderMatchingService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.client.WebSocketConnectionManager;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class DhanWebSocketFactory {
     private final DhanResponseHandler responseHandler;
     private final OrderMatchingService orderMatchingService;
+    private final InstrumentRegistry instrumentRegistry;
+    private final DhanConfig config;
+    private final DhanFeedCapture capture;
+    private final DhanFeedActivity activity;
+    private final DhanFeedOwnership ownership;
+    private final DhanLivenessScheduler liveness;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    // Shared, so restores after a pool-wide outage are paced together
+    private final DhanSubscriptionPacer subscriptionPacer;
 
-    public DhanWebSocketFactory(DhanResponseHandler responseHandler, OrderMatchingService orderMatchingService) {
+    public DhanWebSocketFactory(DhanResponseHandler responseHandler, OrderMatchingService orderMatchingService,
+                                InstrumentRegistry instrumentRegistry, DhanConfig config, DhanFeedCapture capture,
+                                DhanFeedActivity activity, DhanFeedOwnership ownership,
+                                DhanLivenessScheduler liveness, MeterRegistry meterRegistry) {
         this.responseHandler = responseHandler;
         this.orderMatchingService = orderMatchingService;
+        this.instrumentRegistry = instrumentRegistry;
+        this.config = config;
+        this.capture = capture;
+        this.activity = activity;
+        this.ownership = ownership;
+        this.liveness = liveness;
+        this.meterRegistry = meterRegistry;
+        this.subscriptionPacer = new DhanSubscriptionPacer(config.subscriptionPaceMs());
     }
 
     public DhanConnectionPool.DhanConnection createConnection(DhanCredentialFactory.Credential credential) {
-        String url = "wss://api-feed.dhan.co?version=2&token=%s&clientId=%s&authType=2"
-                .formatted(credential.apiKey(), credential.clientId());
-        DhanWebSocketHandler handler = new DhanWebSocketHandler(responseHandler, orderMatchingService);
+        String url = "%s?version=2&token=%s&clientId=%s&authType=2"
+                .formatted(config.feedUrl(), credential.apiKey(), credential.clientId());
+        // Ids start at 1, as 0 means no owner in DhanFeedOwnership
+        int id = connectionIds.incrementAndGet();
+        String name = "dhan-" + id;
+        DhanWebSocketHandler handler = new DhanWebSocketHandler(responseHandler, orderMatchingService, instrumentRegistry, config,
+                capture.isEnabled() ? capture.writer(name) : null, activity);
+        handler.getLatency().bindTo(meterRegistry, name);
         WebSocketConnectionManager manager = WebSocketConnectionManagerBuilder.builder()
                 .withClient(new StandardWebSocketClient())
                 .withHandler(handler)
                 .withUrl(url)
                 .build();
-        DhanConnectionPool.DhanConnection connection = new DhanConnectionPool.DhanConnection(manager, Executors.newVirtualThreadPerTaskExecutor(), handler);
+        DhanConnectionPool.DhanConnection connection = new DhanConnectionPool.DhanConnection(id, name, manager, Executors.newVirtualThreadPerTaskExecutor(), handler, instrumentRegistry,
+                subscriptionPacer, ownership, liveness, config, meterRegistry);
         handler.setOwnerConnection(connection); // Set after creation
         return connection;
     }
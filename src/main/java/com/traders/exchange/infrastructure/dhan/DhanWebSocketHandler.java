@@ -1,11 +1,10 @@
 // com.traders.exchange.infrastructure.dhan.DhanWebSocketHandler
 package com.traders.exchange.infrastructure.dhan;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
-import com.traders.common.model.MarketQuotes;
-import com.traders.exchange.orders.service.OrderMatchingService;
+import com.traders.exchange.domain.InstrumentRegistry;
+import com.traders.exchange.domain.OrderMatchingPort;
 import com.traders.exchange.util.Subject;
+import com.traders.exchange.util.ring.WaitStrategy;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -13,73 +12,117 @@ import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.time.LocalDateTime;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 public class DhanWebSocketHandler extends AbstractWebSocketHandler {
     private final DhanResponseHandler responseHandler;
-    private final OrderMatchingService orderMatchingService;
-    private final Subject<MarketQuotes> priceUpdates;
+    private final OrderMatchingPort orderMatchingPort;
+    private final InstrumentRegistry instrumentRegistry;
+    private final Subject<DhanFeedPipeline.TimedQuote> priceUpdates;
+    private final Subject<DhanFeedPipeline.TimedQuote> cacheUpdates;
+    private final DhanFeedPipeline pipeline;
+    private final DhanFeedCapture.Writer capture;
+    private final DhanFeedActivity activity;
+    @Getter
+    private final DhanFeedLatency latency = new DhanFeedLatency();
+    // Frames of one session are delivered one at a time, so the flyweight and slot are reused
+    private final DhanFeedFrame frame = new DhanFeedFrame();
+    private final DhanQuoteSlot quote = new DhanQuoteSlot();
     @Getter
     private volatile WebSocketSession session;
     @Setter
     private DhanConnectionPool.DhanConnection ownerConnection; // Reference for reconnection
 
-    public DhanWebSocketHandler(DhanResponseHandler responseHandler, OrderMatchingService orderMatchingService) {
+    public DhanWebSocketHandler(DhanResponseHandler responseHandler, OrderMatchingPort orderMatchingPort,
+                                InstrumentRegistry instrumentRegistry, DhanConfig config, DhanFeedCapture.Writer capture,
+                                DhanFeedActivity activity) {
         this.responseHandler = responseHandler;
-        this.orderMatchingService = orderMatchingService;
-        this.priceUpdates = new Subject<>();
-        priceUpdates.subscribe(responseHandler::handlePriceUpdate);
+        this.orderMatchingPort = orderMatchingPort;
+        this.instrumentRegistry = instrumentRegistry;
+        this.capture = capture;
+        this.activity = activity;
+        // STOMP clients and the cache only need each instrument's latest quote, so a backlog is
+        // conflated per instrument instead of stalling the feed pipeline
+        this.priceUpdates = new Subject<>("dhan-stomp");
+        priceUpdates.subscribe(update -> {
+            responseHandler.publishPriceUpdate(update.instrument(), update.quote());
+            latency.record(DhanFeedLatency.Stage.STOMP, update.receivedNanos());
+        }, config.fanOutQueueSize(), Subject.OverflowPolicy.CONFLATE, update -> update.quote().getInstrumentName());
+        this.cacheUpdates = new Subject<>("dhan-cache");
+        cacheUpdates.subscribe(update -> {
+            responseHandler.cachePriceUpdate(update.quote());
+            latency.record(DhanFeedLatency.Stage.CACHE, update.receivedNanos());
+        }, config.fanOutQueueSize(), Subject.OverflowPolicy.CONFLATE, update -> update.quote().getInstrumentName());
+        this.pipeline = new DhanFeedPipeline(config.feedRingSize(), WaitStrategy.of(config.feedWaitStrategy()),
+                orderMatchingPort, latency, priceUpdates::notifyObservers, cacheUpdates::notifyObservers);
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         this.session = session;
         log.info("WebSocket connection established for session: {}", session.getId());
+        if (ownerConnection != null) {
+            ownerConnection.onConnectionEstablished();
+        }
     }
     @Override
-    protected void handlePongMessage(WebSocketSession session, PongMessage message) throws Exception {
-        JsonObject payloadJson = createPingPayload(session); //  Maximum allowed payload of 125 bytes only
-        ByteBuffer payload = ByteBuffer.wrap(payloadJson.toString().getBytes());
-        session.sendMessage(new PingMessage(payload));
-    }
-    private JsonObject createPingPayload(WebSocketSession session) {
-        ownerConnection.updateLastPongReceived(); // Update last pong received
-        log.debug("Received pong at {}", ownerConnection.getLastPongReceived());
-        JsonObject payload = new JsonObject();
-        payload.add("sessionId", new JsonPrimitive(session.getId()));
-        payload.add("pingedAt", new JsonPrimitive(LocalDateTime.now().toString()));
-        return payload;
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        if (ownerConnection != null) {
+            ownerConnection.onPong(message.getPayload());
+        }
     }
+
     @Override
     public void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
-        ByteBuffer buffer = message.getPayload();
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        byte[] responseHeader = new byte[8];
-        buffer.get(responseHeader);
-        byte feedResponseCode = responseHeader[0];
+        long receivedNanos = System.nanoTime();
+        ByteBuffer payload = message.getPayload();
+        if (capture != null) {
+            capture.append(payload, receivedNanos);
+        }
+        onFrame(payload, receivedNanos);
+    }
 
-        if (feedResponseCode == 50) {
-            short disconnectCode = buffer.getShort();
-            log.info("Disconnection Code: {}", disconnectCode);
-        } else if (feedResponseCode == 8) {
-            String instrumentId = extractInstrumentId(responseHeader);
-            MarketQuotes quote = MarketQuotes.parseFromByteBuffer(buffer, instrumentId);
-            if (quote.getLatestTradedPrice() == 0) return;
-            Executors.newVirtualThreadPerTaskExecutor().execute(()->{
-                priceUpdates.notifyObservers(quote);
-                orderMatchingService.onPriceUpdate(instrumentId, quote);
-            });
-            ownerConnection.updateLastReceivedTime();
+    /**
+     * Decodes and publishes one feed frame read between the buffer's position and limit. Called
+     * by the live session, and by {@link DhanFeedReplayer} for recorded frames.
+     *
+     * @param receivedNanos {@link System#nanoTime()} at which the frame arrived, the start of
+     *                      every stage's latency
+     */
+    void onFrame(ByteBuffer payload, long receivedNanos) {
+        frame.wrap(payload);
+        byte feedResponseCode = frame.responseCode();
 
+        if (feedResponseCode == DhanFeedFrame.DISCONNECT) {
+            log.info("Disconnection Code: {}", frame.disconnectCode());
+        } else if (feedResponseCode == DhanFeedFrame.FULL_PACKET) {
+            frame.readFull(quote);
+            publishQuote(receivedNanos);
+        } else if (feedResponseCode == DhanFeedFrame.QUOTE_PACKET) {
+            frame.readQuote(quote);
+            publishQuote(receivedNanos);
+        } else if (feedResponseCode == DhanFeedFrame.TICKER_PACKET) {
+            frame.readTicker(quote);
+            publishQuote(receivedNanos);
         } else {
             log.warn("Unhandled feed response code: {}", feedResponseCode);
         }
     }
 
+    private void publishQuote(long receivedNanos) {
+        if (quote.lastTradedPrice() == 0) return;
+        int instrument = instrumentRegistry.register(quote.securityId(), quote.exchangeSegment());
+        if (ownerConnection != null) {
+            ownerConnection.updateLastReceivedTime(receivedNanos);
+            // While a migration overlaps two sockets, only one side's ticks go on
+            if (!ownerConnection.owns(instrument)) return;
+        }
+        pipeline.publish(frame, quote, instrument, instrumentRegistry.instrumentId(instrument), receivedNanos);
+        activity.onTick(instrument, receivedNanos);
+    }
+
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) {
         log.error("WebSocket error: {}", exception.getMessage(), exception);
@@ -93,6 +136,36 @@ public class DhanWebSocketHandler extends AbstractWebSocketHandler {
         attemptReconnect();
     }
 
+    /**
+     * Stops the feed pipeline's stages and the capture; called when the connection is discarded
+     * for good.
+     */
+    public void close() {
+        if (capture != null) {
+            capture.close();
+        }
+        pipeline.close();
+        priceUpdates.close();
+        cacheUpdates.close();
+        latency.close();
+    }
+
+    /**
+     * @return queue and lag figures for the STOMP and cache observers
+     */
+    public List<Subject.SubscriberStats> getObserverStats() {
+        List<Subject.SubscriberStats> stats = new ArrayList<>(priceUpdates.stats());
+        stats.addAll(cacheUpdates.stats());
+        return stats;
+    }
+
+    /**
+     * @return ticks published to the feed pipeline but not yet through every stage
+     */
+    public long getPipelineBacklog() {
+        return pipeline.backlog();
+    }
+
     private void attemptReconnect() {
         if (ownerConnection != null) {
             ownerConnection.reconnect();
@@ -100,8 +173,4 @@ public class DhanWebSocketHandler extends AbstractWebSocketHandler {
             log.warn("No owner connection set for reconnection");
         }
     }
-
-    private String extractInstrumentId(byte[] responseHeader) {
-        return String.valueOf(ByteBuffer.wrap(responseHeader, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt());
-    }
 }
\ No newline at end of file
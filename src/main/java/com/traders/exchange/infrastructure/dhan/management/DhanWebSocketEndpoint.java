@@ -1,6 +1,8 @@
 package com.traders.exchange.infrastructure.dhan.management;
 
 import com.traders.exchange.infrastructure.dhan.DhanConnectionPool;
+import com.traders.exchange.util.LatencyHistogram;
+import com.traders.exchange.util.Subject;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.Data;
@@ -11,8 +13,11 @@ import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -45,12 +50,19 @@ public class DhanWebSocketEndpoint implements VendorWebsocket{
     public WebSocketStatus getWebSocketStatus() {
         List<ConnectionInfo> connections = connectionPool.getConnections().stream()
                 .map(conn -> new ConnectionInfo(
+                        conn.getName(),
                         conn.isConnected(),
-                        conn.getStartTime(),
-                        conn.getLastReceivedTime(),
+                        conn.isStandby(),
+                        toLocalDateTime(conn.getStartNanos()),
+                        toLocalDateTime(conn.getLastReceivedNanos()),
                         conn.getSubscriptionCount(),
-                        conn.getLastPingSent(),
-                        conn.getLastPongReceived()
+                        connectionPool.ticksPerSecond(conn),
+                        conn.getFirstTickDelayNanos() / 1_000_000,
+                        toLocalDateTime(conn.getLastPingSentNanos()),
+                        toLocalDateTime(conn.getLastPongReceivedNanos()),
+                        conn.getPingRoundTripNanos() / 1_000,
+                        conn.getObserverStats(),
+                        conn.getLatency()
                 ))
                 .collect(Collectors.toList());
 
@@ -64,6 +76,12 @@ public class DhanWebSocketEndpoint implements VendorWebsocket{
 
 
 
+    // Connections keep nanoTime stamps; they are only turned into dates here, for display
+    private static LocalDateTime toLocalDateTime(long nanos) {
+        long epochMillis = DhanConnectionPool.DhanConnection.toEpochMillis(nanos);
+        return epochMillis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
     @WriteOperation
     public void restartConnections() {
         connectionPool.restart();
@@ -91,11 +109,20 @@ public class DhanWebSocketEndpoint implements VendorWebsocket{
 
     @Data
     public static class ConnectionInfo {
+        private final String name;
         private final boolean connected;
+        private final boolean standby;
         private final LocalDateTime startTime;
         private final LocalDateTime lastReceivedTime;
         private final int subscriptionCount;
+        private final double ticksPerSecond;
+        // How long the socket took to tick again after its subscriptions were last restored
+        private final long firstTickDelayMs;
         private final LocalDateTime lastPingSent;
         private final LocalDateTime lastPongReceived;
+        private final long pingRoundTripMicros;
+        private final List<Subject.SubscriberStats> observers;
+        // Frame receipt to hand-off to matching, STOMP send and cache write, in microseconds
+        private final Map<String, LatencyHistogram.Summary> latency;
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.traders.exchange.orders.book;
+
+import com.traders.exchange.domain.TradeResponse;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * One side of an instrument's order book: price levels keyed by a primitive price key, each
+ * holding a FIFO queue of orders.
+ * <p>
+ * Levels are kept in a sorted {@code long[]} with the front level (the first one visited when
+ * matching) at the end of the array, so consuming the top of book never shifts the array and
+ * finding a level is a binary search over the levels only.
+ * <p>
+ * Only the front of the book is O(1) to change: adding or dropping a level elsewhere shifts every
+ * level between it and the front, so costs O(levels) in the worst case. Resting orders cluster
+ * near the touch, where that distance is short, and a flat array keeps the search and the match
+ * loop cache-friendly; a tree would make deep inserts logarithmic at the price of a node per level
+ * and pointer chasing on every tick. The side is not thread-safe; callers serialize access per
+ * instrument.
+ */
+public final class OrderBookSide {
+    /** Prices are stored as fixed-point keys with four decimals. */
+    public static final long PRICE_SCALE = 10_000L;
+    private static final int INITIAL_LEVELS = 16;
+    private static final int MAX_SPARE_LEVELS = 64;
+
+    private final boolean ascending;
+    // Sort keys in descending order; the front level is always at index levelCount - 1
+    private long[] keys = new long[INITIAL_LEVELS];
+    private PriceLevel[] levels = new PriceLevel[INITIAL_LEVELS];
+    private int levelCount;
+    private int orderCount;
+    private final ArrayDeque<PriceLevel> spareLevels = new ArrayDeque<>();
+
+    private OrderBookSide(boolean ascending) {
+        this.ascending = ascending;
+    }
+
+    /**
+     * @return a side matched from the lowest price upwards
+     */
+    public static OrderBookSide ascending() {
+        return new OrderBookSide(true);
+    }
+
+    /**
+     * @return a side matched from the highest price downwards
+     */
+    public static OrderBookSide descending() {
+        return new OrderBookSide(false);
+    }
+
+    public static long priceKey(double price) {
+        return Math.round(price * PRICE_SCALE);
+    }
+
+    /**
+     * Appends the order to the tail of the level for its asked price.
+     *
+     * @param order The order to rest on this side
+     * @return the node that now holds the order
+     */
+    public OrderNode add(TradeResponse order) {
+        return add(order, order.getAskedPrice());
+    }
+
+    /**
+     * Appends the order to the tail of the level for the given price, creating the level if needed.
+     *
+     * @param order The order to rest on this side
+     * @param price The price the order is keyed on
+     * @return the node that now holds the order
+     */
+    public OrderNode add(TradeResponse order, double price) {
+        long priceKey = priceKey(price);
+        int index = search(sortKey(priceKey));
+        PriceLevel level = index >= 0 ? levels[index] : insertLevel(-index - 1, priceKey);
+        OrderNode node = new OrderNode(order, priceKey, this);
+        level.append(node);
+        orderCount++;
+        return node;
+    }
+
+    /**
+     * Unlinks the node from its level, dropping the level once it is empty.
+     *
+     * @param node The node to remove
+     * @return true if removed, false if the node was no longer resting
+     */
+    public boolean remove(OrderNode node) {
+        PriceLevel level = node.level;
+        if (level == null || node.side() != this) {
+            return false;
+        }
+        level.unlink(node);
+        orderCount--;
+        if (level.isEmpty()) {
+            removeLevel(level);
+        }
+        return true;
+    }
+
+    /**
+     * @param rank 0 for the front level, 1 for the next one and so on
+     * @return the level at that rank
+     */
+    public PriceLevel levelAt(int rank) {
+        return levels[levelCount - 1 - rank];
+    }
+
+    public PriceLevel front() {
+        return levelCount == 0 ? null : levels[levelCount - 1];
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int levelCount() {
+        return levelCount;
+    }
+
+    public int orderCount() {
+        return orderCount;
+    }
+
+    public boolean isEmpty() {
+        return orderCount == 0;
+    }
+
+    private long sortKey(long priceKey) {
+        return ascending ? priceKey : -priceKey;
+    }
+
+    private int search(long sortKey) {
+        int low = 0;
+        int high = levelCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long key = keys[mid];
+            if (key > sortKey) {
+                low = mid + 1;
+            } else if (key < sortKey) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private PriceLevel insertLevel(int position, long priceKey) {
+        if (levelCount == keys.length) {
+            keys = Arrays.copyOf(keys, levelCount << 1);
+            levels = Arrays.copyOf(levels, levelCount << 1);
+        }
+        System.arraycopy(keys, position, keys, position + 1, levelCount - position);
+        System.arraycopy(levels, position, levels, position + 1, levelCount - position);
+        PriceLevel level = spareLevels.isEmpty() ? new PriceLevel() : spareLevels.pop();
+        level.reset(priceKey);
+        keys[position] = sortKey(priceKey);
+        levels[position] = level;
+        levelCount++;
+        return level;
+    }
+
+    private void removeLevel(PriceLevel level) {
+        int index = levelCount - 1;
+        if (levels[index] != level) {
+            index = search(sortKey(level.priceKey()));
+            System.arraycopy(keys, index + 1, keys, index, levelCount - index - 1);
+            System.arraycopy(levels, index + 1, levels, index, levelCount - index - 1);
+        }
+        levelCount--;
+        levels[levelCount] = null;
+        if (spareLevels.size() < MAX_SPARE_LEVELS) {
+            spareLevels.push(level);
+        }
+    }
+}
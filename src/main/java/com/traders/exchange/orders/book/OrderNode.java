@@ -0,0 +1,52 @@
+package com.traders.exchange.orders.book;
+
+import com.traders.exchange.domain.TradeResponse;
+
+/**
+ * Resting order as it sits in a {@link PriceLevel}. Nodes are linked intrusively so an order
+ * can be unlinked in O(1) once it has been found through the transaction lookup.
+ */
+public final class OrderNode {
+    private final TradeResponse order;
+    private final long priceKey;
+    private final OrderBookSide side;
+    PriceLevel level;
+    OrderNode prev;
+    OrderNode next;
+
+    OrderNode(TradeResponse order, long priceKey, OrderBookSide side) {
+        this.order = order;
+        this.priceKey = priceKey;
+        this.side = side;
+    }
+
+    public TradeResponse order() {
+        return order;
+    }
+
+    public long transactionId() {
+        return order.transactionId();
+    }
+
+    public long priceKey() {
+        return priceKey;
+    }
+
+    /**
+     * @return the book side the order was added to
+     */
+    public OrderBookSide side() {
+        return side;
+    }
+
+    public OrderNode next() {
+        return next;
+    }
+
+    /**
+     * @return true while the node is still linked into a price level
+     */
+    public boolean isResting() {
+        return level != null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.traders.exchange.orders.book;
+
+/**
+ * FIFO queue of resting orders that share one price key. Orders are matched head first,
+ * so time priority inside a level is preserved.
+ */
+public final class PriceLevel {
+    private long priceKey;
+    private OrderNode head;
+    private OrderNode tail;
+    private int size;
+
+    void reset(long priceKey) {
+        this.priceKey = priceKey;
+        this.head = null;
+        this.tail = null;
+        this.size = 0;
+    }
+
+    void append(OrderNode node) {
+        node.level = this;
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        size++;
+    }
+
+    void unlink(OrderNode node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.level = null;
+        node.prev = null;
+        // node.next is left intact so an iterator positioned on the node can still advance
+        size--;
+    }
+
+    public long priceKey() {
+        return priceKey;
+    }
+
+    public OrderNode head() {
+        return head;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,65 @@
+package com.traders.exchange.orders.book;
+
+import com.traders.exchange.domain.OrderCategory;
+import com.traders.exchange.domain.TradeRequest;
+import com.traders.exchange.domain.TradeResponse;
+
+/**
+ * Trigger-price indexes for one instrument's stop-loss and bracket orders, kept apart from the
+ * limit book.
+ * <p>
+ * Each order side has a rising index (ascending, the order can fire once the price reaches its
+ * trigger from below) and a falling index (descending, the order can fire once the price drops to
+ * its trigger). A tick therefore only visits levels whose trigger it has actually crossed. The
+ * trigger chosen per category is the necessary condition of the match rules in
+ * {@code OrderMatchingService.shouldMatchOrder}, which still decides whether a crossed order fills.
+ */
+public final class TriggerBook {
+    private final OrderBookSide buyRising = OrderBookSide.ascending();
+    private final OrderBookSide buyFalling = OrderBookSide.descending();
+    private final OrderBookSide sellRising = OrderBookSide.ascending();
+    private final OrderBookSide sellFalling = OrderBookSide.descending();
+
+    /**
+     * @return true for categories that rest in a trigger index instead of the limit book
+     */
+    public static boolean isTriggerOrder(OrderCategory category) {
+        return switch (category) {
+            case STOP_LOSS, BRACKET_AT_MARKET, BRACKET_AT_LIMIT -> true;
+            case MARKET, LIMIT -> false;
+        };
+    }
+
+    public OrderNode add(TradeResponse order, boolean isBuy) {
+        TradeRequest request = order.request();
+        return switch (request.orderCategory()) {
+            // Fires once price >= stop loss
+            case STOP_LOSS -> rising(isBuy).add(order, orElse(request.stopLossPrice(), request.askedPrice()));
+            // Buy fires once price <= asked (target is checked on match), sell once price >= max(stop loss, target)
+            case BRACKET_AT_MARKET -> isBuy
+                    ? buyFalling.add(order, request.askedPrice())
+                    : sellRising.add(order, Math.max(orElse(request.stopLossPrice(), 0), orElse(request.targetPrice(), 0)));
+            case BRACKET_AT_LIMIT -> isBuy
+                    ? buyFalling.add(order, request.askedPrice())
+                    : sellRising.add(order, request.askedPrice());
+            case MARKET, LIMIT -> throw new IllegalArgumentException(
+                    "Not a trigger order: " + request.orderCategory());
+        };
+    }
+
+    public OrderBookSide rising(boolean isBuy) {
+        return isBuy ? buyRising : sellRising;
+    }
+
+    public OrderBookSide falling(boolean isBuy) {
+        return isBuy ? buyFalling : sellFalling;
+    }
+
+    public boolean isEmpty() {
+        return buyRising.isEmpty() && buyFalling.isEmpty() && sellRising.isEmpty() && sellFalling.isEmpty();
+    }
+
+    private static double orElse(Double price, double fallback) {
+        return price == null ? fallback : price;
+    }
+}
@@ -0,0 +1,36 @@
+package com.traders.exchange.orders.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs work against an instrument's book with exclusive access to it. Instruments are addressed
+ * by their {@link com.traders.exchange.domain.InstrumentRegistry} index.
+ */
+public interface InstrumentExecutor {
+
+    /**
+     * Runs the task for the instrument. Tasks submitted for the same instrument from one thread
+     * run in submission order; implementations may run the task on the calling thread.
+     */
+    void execute(int instrument, Runnable task);
+
+    /**
+     * Same as {@link #execute} but never runs the task on the calling thread, for callers such
+     * as the feed reader that must not block on matching.
+     */
+    void dispatch(int instrument, Runnable task);
+
+    /**
+     * Runs the task for the instrument and waits for its result.
+     */
+    <T> T call(int instrument, Supplier<T> task);
+
+    /**
+     * Runs the task for the instrument without waiting, so work for different instruments can
+     * proceed in parallel.
+     */
+    <T> CompletableFuture<T> submit(int instrument, Supplier<T> task);
+
+    void shutdown();
+}
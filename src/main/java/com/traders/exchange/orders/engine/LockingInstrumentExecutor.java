@@ -0,0 +1,56 @@
+package com.traders.exchange.orders.engine;
+
+import com.traders.exchange.util.IndexedTable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Original execution mode: callers run under the instrument's write lock and dispatched work
+ * gets its own virtual thread.
+ */
+public class LockingInstrumentExecutor implements InstrumentExecutor {
+    private final IndexedTable<ReadWriteLock> stockLocks = new IndexedTable<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Override
+    public void execute(int instrument, Runnable task) {
+        ReadWriteLock lock = stockLocks.computeIfAbsent(instrument, k -> new ReentrantReadWriteLock());
+        lock.writeLock().lock();
+        try {
+            task.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void dispatch(int instrument, Runnable task) {
+        executor.execute(() -> execute(instrument, task));
+    }
+
+    @Override
+    public <T> T call(int instrument, Supplier<T> task) {
+        ReadWriteLock lock = stockLocks.computeIfAbsent(instrument, k -> new ReentrantReadWriteLock());
+        lock.writeLock().lock();
+        try {
+            return task.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(int instrument, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> call(instrument, task), executor);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
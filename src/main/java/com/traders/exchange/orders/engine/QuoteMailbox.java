@@ -0,0 +1,87 @@
+package com.traders.exchange.orders.engine;
+
+import com.traders.exchange.util.IndexedTable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conflating mailbox with one pending quote slot per instrument. A newer quote overwrites the
+ * pending one in place, so an instrument never has more than one quote waiting for the matcher
+ * however far the matcher falls behind. Slots hold the touch prices as primitives and are reused
+ * for the life of the instrument, so offering a tick does not allocate.
+ */
+public class QuoteMailbox {
+    private final IndexedTable<Slot> slots = new IndexedTable<>();
+
+    /**
+     * Receives the touch prices taken from a slot.
+     */
+    @FunctionalInterface
+    public interface QuoteConsumer {
+        void accept(int instrument, double bestBid, double bestAsk);
+    }
+
+    /**
+     * Stores the prices as the instrument's pending quote.
+     *
+     * @return true if the slot was empty and the caller has to schedule a drain, false if an
+     * undrained quote was overwritten
+     */
+    public boolean offer(int instrument, double bestBid, double bestAsk) {
+        return slots.computeIfAbsent(instrument, k -> new Slot()).offer(bestBid, bestAsk);
+    }
+
+    /**
+     * Takes the pending quote, leaving the slot empty, and hands it to the consumer outside the
+     * slot's lock.
+     *
+     * @return false if the quote has already been drained
+     */
+    public boolean drain(int instrument, QuoteConsumer consumer) {
+        Slot slot = slots.get(instrument);
+        return slot != null && slot.drain(instrument, consumer);
+    }
+
+    /**
+     * @return number of ticks overwritten before matching saw them
+     */
+    public long conflatedCount(int instrument) {
+        Slot slot = slots.get(instrument);
+        return slot == null ? 0 : slot.conflated.sum();
+    }
+
+    private static final class Slot {
+        private final LongAdder conflated = new LongAdder();
+        // Guarded by this; a lock keeps bid and ask from two different ticks from being paired
+        private double bestBid;
+        private double bestAsk;
+        private boolean pending;
+
+        private boolean offer(double bid, double ask) {
+            boolean wasPending;
+            synchronized (this) {
+                bestBid = bid;
+                bestAsk = ask;
+                wasPending = pending;
+                pending = true;
+            }
+            if (wasPending) {
+                conflated.increment();
+            }
+            return !wasPending;
+        }
+
+        private boolean drain(int instrument, QuoteConsumer consumer) {
+            double bid;
+            double ask;
+            synchronized (this) {
+                if (!pending) return false;
+                bid = bestBid;
+                ask = bestAsk;
+                pending = false;
+            }
+            consumer.accept(instrument, bid, ask);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.traders.exchange.orders.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Partitions instruments across single-threaded event loops. Each loop is the only writer
+ * of its instruments' books, so no locks are taken and work for an instrument runs strictly in
+ * the order it was queued.
+ */
+public class ShardedInstrumentExecutor implements InstrumentExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedInstrumentExecutor.class);
+
+    private final ExecutorService[] shards;
+    private final Thread[] shardThreads;
+
+    public ShardedInstrumentExecutor(int shardCount) {
+        this.shards = new ExecutorService[shardCount];
+        this.shardThreads = new Thread[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int shard = i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "matching-shard-" + shard);
+                thread.setDaemon(true);
+                shardThreads[shard] = thread;
+                return thread;
+            });
+        }
+        logger.info("Started {} matching shards", shardCount);
+    }
+
+    @Override
+    public void execute(int instrument, Runnable task) {
+        shardFor(instrument).execute(() -> runSafely(instrument, task));
+    }
+
+    @Override
+    public void dispatch(int instrument, Runnable task) {
+        execute(instrument, task);
+    }
+
+    @Override
+    public <T> T call(int instrument, Supplier<T> task) {
+        int shard = shardIndex(instrument);
+        if (Thread.currentThread() == shardThreads[shard]) {
+            return task.get();
+        }
+        Future<T> result = shards[shard].submit(task::get);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for matching shard " + shard, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(int instrument, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, shardFor(instrument));
+    }
+
+    @Override
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private ExecutorService shardFor(int instrument) {
+        return shards[shardIndex(instrument)];
+    }
+
+    private int shardIndex(int instrument) {
+        // Indexes are dense, so round-robin assignment spreads instruments evenly
+        return instrument % shards.length;
+    }
+
+    private static void runSafely(int instrument, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            // A failing task must not take the shard's loop down with it
+            logger.error("Matching task failed for instrument index {}: {}", instrument, e.getMessage(), e);
+        }
+    }
+}
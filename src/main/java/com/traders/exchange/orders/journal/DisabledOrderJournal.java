@@ -0,0 +1,21 @@
+package com.traders.exchange.orders.journal;
+
+import com.traders.exchange.domain.TradeResponse;
+
+import java.util.List;
+
+final class DisabledOrderJournal implements OrderJournal {
+    static final DisabledOrderJournal INSTANCE = new DisabledOrderJournal();
+
+    private DisabledOrderJournal() {}
+
+    @Override public void placed(TradeResponse order, boolean isBuy, long expiresAtMillis) {}
+    @Override public void amended(long transactionId, double askedPrice, double priceWhenUpdated) {}
+    @Override public void filled(long transactionId, double price) {}
+    @Override public void cancelled(long transactionId) {}
+    @Override public List<RestingOrder> replay() { return List.of(); }
+    @Override public long beginCompaction() { return 0; }
+    @Override public void completeCompaction(long sequence, List<RestingOrder> liveOrders) {}
+    @Override public boolean isEnabled() { return false; }
+    @Override public void close() {}
+}
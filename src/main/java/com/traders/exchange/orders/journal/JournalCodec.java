@@ -0,0 +1,196 @@
+package com.traders.exchange.orders.journal;
+
+import com.traders.exchange.domain.OrderCategory;
+import com.traders.exchange.domain.OrderType;
+import com.traders.exchange.domain.OrderValidity;
+import com.traders.exchange.domain.TradeRequest;
+import com.traders.exchange.domain.TradeResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Binary layout of journal records: {@code [int length][byte type][payload]}, where length
+ * covers type and payload. A zero length marks the end of the written part of a segment.
+ * Nullable numbers are stored with a sentinel (NaN, {@link Long#MIN_VALUE}, -1). Fields are only
+ * ever appended to a record, so a reader takes a field missing from an older record as unset.
+ */
+final class JournalCodec {
+    static final byte PLACE = 1;
+    static final byte AMEND = 2;
+    static final byte FILL = 3;
+    static final byte CANCEL = 4;
+
+    static final int HEADER_BYTES = Integer.BYTES + Byte.BYTES;
+    static final int PLACE_FIXED_BYTES = 79;
+    static final int AMEND_BYTES = HEADER_BYTES + Long.BYTES + Double.BYTES * 2;
+    static final int FILL_BYTES = HEADER_BYTES + Long.BYTES + Double.BYTES;
+    static final int CANCEL_BYTES = HEADER_BYTES + Long.BYTES;
+
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final OrderCategory[] ORDER_CATEGORIES = OrderCategory.values();
+    private static final OrderValidity[] ORDER_VALIDITIES = OrderValidity.values();
+
+    private JournalCodec() {}
+
+    static int placeBytes(byte[] instrumentId) {
+        return HEADER_BYTES + PLACE_FIXED_BYTES + instrumentId.length;
+    }
+
+    static byte[] instrumentBytes(TradeResponse order) {
+        return order.instrumentId() == null ? new byte[0] : order.instrumentId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void writePlace(ByteBuffer buffer, TradeResponse order, boolean isBuy, long expiresAtMillis,
+                           byte[] instrumentId) {
+        int start = beginRecord(buffer, PLACE);
+        TradeRequest request = order.request();
+        buffer.putLong(longOrSentinel(order.transactionId()));
+        buffer.put((byte) (isBuy ? 1 : 0));
+        buffer.putShort((short) instrumentId.length);
+        buffer.put(instrumentId);
+        buffer.put(order.isShortSell() == null ? -1 : (byte) (order.isShortSell() ? 1 : 0));
+        buffer.putDouble(doubleOrNaN(order.priceWhenOrderPlaced()));
+        buffer.putDouble(doubleOrNaN(request.lotSize()));
+        buffer.put(ordinal(request.orderType()));
+        buffer.put(ordinal(request.orderCategory()));
+        buffer.putLong(longOrSentinel(request.stockId()));
+        buffer.putDouble(doubleOrNaN(request.askedPrice()));
+        buffer.putDouble(doubleOrNaN(request.stopLossPrice()));
+        buffer.putDouble(doubleOrNaN(request.targetPrice()));
+        buffer.put(ordinal(request.orderValidity()));
+        buffer.putLong(longOrSentinel(request.transactionId()));
+        buffer.putLong(expiresAtMillis);
+        endRecord(buffer, start);
+    }
+
+    static void writeAmend(ByteBuffer buffer, long transactionId, double askedPrice, double priceWhenUpdated) {
+        int start = beginRecord(buffer, AMEND);
+        buffer.putLong(transactionId);
+        buffer.putDouble(askedPrice);
+        buffer.putDouble(priceWhenUpdated);
+        endRecord(buffer, start);
+    }
+
+    static void writeFill(ByteBuffer buffer, long transactionId, double price) {
+        int start = beginRecord(buffer, FILL);
+        buffer.putLong(transactionId);
+        buffer.putDouble(price);
+        endRecord(buffer, start);
+    }
+
+    static void writeCancel(ByteBuffer buffer, long transactionId) {
+        int start = beginRecord(buffer, CANCEL);
+        buffer.putLong(transactionId);
+        endRecord(buffer, start);
+    }
+
+    /**
+     * Applies every record from the buffer's position up to the end marker to the resting orders.
+     *
+     * @param buffer Buffer positioned at the first record
+     * @param orders Resting orders by transaction ID, in arrival order
+     * @return number of records applied
+     */
+    static int apply(ByteBuffer buffer, Map<Long, RestingOrder> orders) {
+        int applied = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) break;
+            int next = buffer.position() + length;
+            byte type = buffer.get();
+            switch (type) {
+                case PLACE -> {
+                    RestingOrder resting = readPlace(buffer, next);
+                    orders.put(resting.order().transactionId(), resting);
+                }
+                case AMEND -> {
+                    long transactionId = buffer.getLong();
+                    double askedPrice = buffer.getDouble();
+                    double priceWhenUpdated = buffer.getDouble();
+                    // Re-inserted so the amended order queues behind its new level, as in the book
+                    RestingOrder existing = orders.remove(transactionId);
+                    if (existing != null) {
+                        orders.put(transactionId, new RestingOrder(
+                                existing.order().withAskedPrice(askedPrice, priceWhenUpdated), existing.isBuy(),
+                                existing.expiresAtMillis()));
+                    }
+                }
+                case FILL, CANCEL -> orders.remove(buffer.getLong());
+                default -> {
+                    // Unknown record type, skip it by length
+                }
+            }
+            buffer.position(next);
+            applied++;
+        }
+        return applied;
+    }
+
+    private static RestingOrder readPlace(ByteBuffer buffer, int end) {
+        Long transactionId = sentinelToLong(buffer.getLong());
+        boolean isBuy = buffer.get() == 1;
+        byte[] instrumentBytes = new byte[buffer.getShort()];
+        buffer.get(instrumentBytes);
+        byte shortSell = buffer.get();
+        Double priceWhenPlaced = nanToDouble(buffer.getDouble());
+        TradeRequest request = new TradeRequest(
+                nanToDouble(buffer.getDouble()),
+                fromOrdinal(ORDER_TYPES, buffer.get()),
+                fromOrdinal(ORDER_CATEGORIES, buffer.get()),
+                sentinelToLong(buffer.getLong()),
+                nanToDouble(buffer.getDouble()),
+                nanToDouble(buffer.getDouble()),
+                nanToDouble(buffer.getDouble()),
+                fromOrdinal(ORDER_VALIDITIES, buffer.get()),
+                sentinelToLong(buffer.getLong())
+        );
+        TradeResponse order = new TradeResponse(
+                request,
+                transactionId,
+                new String(instrumentBytes, StandardCharsets.UTF_8),
+                shortSell < 0 ? null : shortSell == 1,
+                priceWhenPlaced
+        );
+        // Records written before expiry was journaled end here
+        long expiresAtMillis = end - buffer.position() >= Long.BYTES ? buffer.getLong() : 0;
+        return new RestingOrder(order, isBuy, expiresAtMillis);
+    }
+
+    private static int beginRecord(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.put(type);
+        return start;
+    }
+
+    private static void endRecord(ByteBuffer buffer, int start) {
+        // Length goes in last so a reader never sees a half written record as complete
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+
+    private static long longOrSentinel(Long value) {
+        return value == null ? Long.MIN_VALUE : value;
+    }
+
+    private static Long sentinelToLong(long value) {
+        return value == Long.MIN_VALUE ? null : value;
+    }
+
+    private static double doubleOrNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static Double nanToDouble(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+
+    private static <E> E fromOrdinal(E[] values, byte ordinal) {
+        return ordinal < 0 || ordinal >= values.length ? null : values[ordinal];
+    }
+}
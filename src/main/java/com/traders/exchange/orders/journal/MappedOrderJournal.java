@@ -0,0 +1,226 @@
+package com.traders.exchange.orders.journal;
+
+import com.traders.exchange.domain.TradeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * {@link OrderJournal} backed by memory-mapped segment files. Appends are plain writes into the
+ * mapped segment, so the matching path makes no system call per event; a full segment is
+ * rolled over to the next one.
+ * <p>
+ * Files in the journal directory are {@code journal-<seq>.log} segments and
+ * {@code snapshot-<seq>.snap} snapshots. A snapshot with sequence S holds the resting orders as
+ * of the start of segment S, so recovery loads the newest snapshot and replays segments S and
+ * later only.
+ */
+public class MappedOrderJournal implements OrderJournal {
+    private static final Logger logger = LoggerFactory.getLogger(MappedOrderJournal.class);
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_BUFFER_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private long sequence;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+
+    public MappedOrderJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create journal directory " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void placed(TradeResponse order, boolean isBuy, long expiresAtMillis) {
+        byte[] instrumentId = JournalCodec.instrumentBytes(order);
+        JournalCodec.writePlace(reserve(JournalCodec.placeBytes(instrumentId)), order, isBuy, expiresAtMillis, instrumentId);
+    }
+
+    @Override
+    public synchronized void amended(long transactionId, double askedPrice, double priceWhenUpdated) {
+        JournalCodec.writeAmend(reserve(JournalCodec.AMEND_BYTES), transactionId, askedPrice, priceWhenUpdated);
+    }
+
+    @Override
+    public synchronized void filled(long transactionId, double price) {
+        JournalCodec.writeFill(reserve(JournalCodec.FILL_BYTES), transactionId, price);
+    }
+
+    @Override
+    public synchronized void cancelled(long transactionId) {
+        JournalCodec.writeCancel(reserve(JournalCodec.CANCEL_BYTES), transactionId);
+    }
+
+    /**
+     * Replays snapshot and segments, then opens a fresh segment for new events. Must be called
+     * once, before anything is appended.
+     */
+    @Override
+    public synchronized List<RestingOrder> replay() {
+        long started = System.nanoTime();
+        Map<Long, RestingOrder> orders = new LinkedHashMap<>();
+        long snapshotSequence = latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        int records = 0;
+        if (snapshotSequence >= 0) {
+            records += applyFile(file(SNAPSHOT_PREFIX, snapshotSequence, SNAPSHOT_SUFFIX), orders);
+        }
+        long lastSegment = -1;
+        for (long segmentSequence : sequences(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            lastSegment = segmentSequence;
+            if (segmentSequence >= snapshotSequence) {
+                records += applyFile(file(SEGMENT_PREFIX, segmentSequence, SEGMENT_SUFFIX), orders);
+            }
+        }
+        sequence = Math.max(lastSegment, snapshotSequence);
+        openSegment(sequence + 1);
+        logger.info("Replayed {} journal records into {} resting orders in {}ms",
+                records, orders.size(), (System.nanoTime() - started) / 1_000_000);
+        return new ArrayList<>(orders.values());
+    }
+
+    @Override
+    public synchronized long beginCompaction() {
+        openSegment(sequence + 1);
+        return sequence;
+    }
+
+    @Override
+    public void completeCompaction(long snapshotSequence, List<RestingOrder> liveOrders) {
+        Path target = file(SNAPSHOT_PREFIX, snapshotSequence, SNAPSHOT_SUFFIX);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (RestingOrder resting : liveOrders) {
+                byte[] instrumentId = JournalCodec.instrumentBytes(resting.order());
+                if (buffer.remaining() < JournalCodec.placeBytes(instrumentId)) {
+                    flush(channel, buffer);
+                }
+                JournalCodec.writePlace(buffer, resting.order(), resting.isBuy(), resting.expiresAtMillis(), instrumentId);
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write journal snapshot " + target + ": " + e.getMessage(), e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (long old : sequences(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (old < snapshotSequence) Files.deleteIfExists(file(SEGMENT_PREFIX, old, SEGMENT_SUFFIX));
+            }
+            for (long old : sequences(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (old < snapshotSequence) Files.deleteIfExists(file(SNAPSHOT_PREFIX, old, SNAPSHOT_SUFFIX));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to finish journal compaction: " + e.getMessage(), e);
+        }
+        logger.info("Compacted order journal into snapshot {} with {} resting orders", snapshotSequence, liveOrders.size());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeSegment();
+    }
+
+    private ByteBuffer reserve(int bytes) {
+        // Keep room for the zero length that terminates the segment
+        if (segment.remaining() < bytes + Integer.BYTES) {
+            openSegment(sequence + 1);
+        }
+        return segment;
+    }
+
+    private void openSegment(long segmentSequence) {
+        closeSegment();
+        Path path = file(SEGMENT_PREFIX, segmentSequence, SEGMENT_SUFFIX);
+        try {
+            segmentChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            sequence = segmentSequence;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open journal segment " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void closeSegment() {
+        if (segmentChannel == null) return;
+        try {
+            segment.force();
+            segmentChannel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close journal segment {}: {}", sequence, e.getMessage());
+        }
+        segment = null;
+        segmentChannel = null;
+    }
+
+    private int applyFile(Path path, Map<Long, RestingOrder> orders) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() == 0) return 0;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return JournalCodec.apply(buffer, orders);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to replay journal file " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private Path file(String prefix, long fileSequence, String suffix) {
+        return directory.resolve(prefix + String.format("%020d", fileSequence) + suffix);
+    }
+
+    private long latest(String prefix, String suffix) {
+        List<Long> all = sequences(prefix, suffix);
+        return all.isEmpty() ? -1 : all.getLast();
+    }
+
+    private List<Long> sequences(String prefix, String suffix) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list journal directory " + directory + ": " + e.getMessage(), e);
+        }
+    }
+}
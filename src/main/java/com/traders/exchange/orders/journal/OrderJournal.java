@@ -0,0 +1,55 @@
+package com.traders.exchange.orders.journal;
+
+import com.traders.exchange.domain.TradeResponse;
+
+import java.util.List;
+
+/**
+ * Write-ahead journal of book events. Callers append after the book has been changed, and
+ * replay applies events idempotently, so an event may safely appear both in a snapshot and in
+ * the journal that follows it.
+ */
+public interface OrderJournal {
+
+    /**
+     * @param expiresAtMillis epoch millis of the session close the order expires at, 0 if it does not expire
+     */
+    void placed(TradeResponse order, boolean isBuy, long expiresAtMillis);
+
+    void amended(long transactionId, double askedPrice, double priceWhenUpdated);
+
+    void filled(long transactionId, double price);
+
+    void cancelled(long transactionId);
+
+    /**
+     * Rebuilds the resting orders from the latest snapshot and the journal written after it.
+     *
+     * @return resting orders, in arrival order within each price level
+     */
+    List<RestingOrder> replay();
+
+    /**
+     * Starts a new journal segment that the next snapshot will be taken against.
+     *
+     * @return sequence to pass to {@link #completeCompaction}
+     */
+    long beginCompaction();
+
+    /**
+     * Writes the snapshot for the sequence returned by {@link #beginCompaction} and drops the
+     * segments and snapshots it supersedes.
+     *
+     * @param sequence     Sequence returned by {@link #beginCompaction}
+     * @param liveOrders   Orders resting once the new segment was started
+     */
+    void completeCompaction(long sequence, List<RestingOrder> liveOrders);
+
+    boolean isEnabled();
+
+    void close();
+
+    static OrderJournal disabled() {
+        return DisabledOrderJournal.INSTANCE;
+    }
+}
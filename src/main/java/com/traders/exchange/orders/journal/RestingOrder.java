@@ -0,0 +1,11 @@
+package com.traders.exchange.orders.journal;
+
+import com.traders.exchange.domain.TradeResponse;
+
+/**
+ * An order recovered from the journal together with the book side it rests on.
+ *
+ * @param expiresAtMillis epoch millis of the session close the order expires at, or 0 if it does
+ *                        not expire or was journaled before expiry was recorded
+ */
+public record RestingOrder(TradeResponse order, boolean isBuy, long expiresAtMillis) {}
@@ -0,0 +1,43 @@
+package com.traders.exchange.orders.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Matching engine settings.
+ *
+ * @param shards              number of single-threaded matching loops; 0 keeps the lock-per-instrument mode
+ * @param reportBatchSize     max transaction updates sent to the portfolio service in one call
+ * @param reportWindowMs      how long the first update of a batch waits for others to join it
+ * @param reportMaxInFlight   max concurrent calls to the portfolio service
+ * @param reportMaxRetries    retries per batch before it is given up on
+ * @param journalDir          directory for the resting order journal; journaling is off when unset
+ * @param journalSegmentMb    size of each memory-mapped journal segment
+ * @param journalSnapshotSec  interval between compacted snapshots of the journal
+ * @param sessionClose        local time at which INTRADAY orders expire, e.g. 15:30
+ * @param sessionZone         time zone of {@code sessionClose}
+ */
+@ConfigurationProperties(prefix = "exchange.matching")
+public record MatchingConfig(
+    int shards,
+    int reportBatchSize,
+    long reportWindowMs,
+    int reportMaxInFlight,
+    int reportMaxRetries,
+    String journalDir,
+    int journalSegmentMb,
+    long journalSnapshotSec,
+    String sessionClose,
+    String sessionZone
+) {
+    public MatchingConfig {
+        if (shards < 0) shards = 0;
+        if (reportBatchSize <= 0) reportBatchSize = 200;
+        if (reportWindowMs <= 0) reportWindowMs = 20;
+        if (reportMaxInFlight <= 0) reportMaxInFlight = 4;
+        if (reportMaxRetries <= 0) reportMaxRetries = 3;
+        if (journalSegmentMb <= 0) journalSegmentMb = 64;
+        if (journalSnapshotSec <= 0) journalSnapshotSec = 300;
+        if (sessionClose == null || sessionClose.isBlank()) sessionClose = "15:30";
+        if (sessionZone == null || sessionZone.isBlank()) sessionZone = "Asia/Kolkata";
+    }
+}
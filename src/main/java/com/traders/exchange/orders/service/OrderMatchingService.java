@@ -2,37 +2,92 @@ package com.traders.exchange.orders.service;
 
 import com.traders.common.model.MarketQuotes;
 import com.traders.exchange.domain.*;
+import com.traders.exchange.orders.book.OrderBookSide;
+import com.traders.exchange.orders.book.OrderNode;
+import com.traders.exchange.orders.book.PriceLevel;
+import com.traders.exchange.orders.book.TriggerBook;
+import com.traders.exchange.orders.engine.InstrumentExecutor;
+import com.traders.exchange.orders.engine.LockingInstrumentExecutor;
+import com.traders.exchange.orders.engine.QuoteMailbox;
+import com.traders.exchange.orders.engine.ShardedInstrumentExecutor;
+import com.traders.exchange.orders.journal.MappedOrderJournal;
+import com.traders.exchange.orders.journal.OrderJournal;
+import com.traders.exchange.orders.journal.RestingOrder;
+import com.traders.exchange.util.IndexedTable;
+import com.traders.exchange.util.TimerWheel;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Enhanced OrderMatchingService with order price update capability.
- * Optimized with Java 21 virtual threads and thread-safe collections.
+ * Each instrument keeps a price-level book per side ({@link OrderBookSide}) for limit and market
+ * orders, and a {@link TriggerBook} indexing stop-loss and bracket orders by trigger price.
+ * Book access goes through an {@link InstrumentExecutor}: either a write lock per instrument with
+ * a virtual thread per tick, or, when {@code exchange.matching.shards} is set, single-threaded
+ * shards that own their instruments outright and handle ticks, placements and amends in arrival
+ * order.
+ * Ticks pass through a {@link QuoteMailbox}, so an instrument that falls behind is matched
+ * against its latest quote only. When {@code exchange.matching.journal-dir} is set, book changes
+ * are written to an {@link OrderJournal} and the books are rebuilt from it on startup.
+ * INTRADAY orders are scheduled on a {@link TimerWheel} and cancelled in bulk at session close.
+ * Books and quote slots are indexed by the {@link InstrumentRegistry} index, so a tick is routed
+ * without hashing an instrument id string.
  */
 @Service
 public class OrderMatchingService implements OrderMatchingPort {
     private static final Logger logger = LoggerFactory.getLogger(OrderMatchingService.class);
+    private static final long EXPIRY_TICK_MS = 1000;
+    private static final int EXPIRY_WHEEL_LEVELS = 4;
 
-    private final Map<String, ConcurrentSkipListSet<TradeResponse>> buyOrderQueues = new ConcurrentHashMap<>();
-    private final Map<String, ConcurrentSkipListSet<TradeResponse>> sellOrderQueues = new ConcurrentHashMap<>();
+    private final IndexedTable<OrderBookSide> buyOrderQueues = new IndexedTable<>();
+    private final IndexedTable<OrderBookSide> sellOrderQueues = new IndexedTable<>();
+    private final IndexedTable<TriggerBook> triggerBooks = new IndexedTable<>();
     private final Set<Long> loadedTransactionIds = ConcurrentHashMap.newKeySet();
-    private final Map<String, ReadWriteLock> stockLocks = new ConcurrentHashMap<>();
-    private final Map<Long, TradeResponse> orderLookup = new ConcurrentHashMap<>(); // For fast order updates
+    // Session close each resting INTRADAY order expires at, in epoch millis, for the journal
+    private final Map<Long, Long> intradayExpiry = new ConcurrentHashMap<>();
+    private final Map<Long, OrderNode> orderLookup = new ConcurrentHashMap<>(); // For fast order updates
 
     private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
-    private final TradeFeignService tradeFeign;
+    private final InstrumentExecutor instrumentExecutor;
+    private final QuoteMailbox quoteMailbox = new QuoteMailbox();
+    private final QuoteMailbox.QuoteConsumer quoteMatcher = this::processOrdersForPrice;
+    private final IndexedTable<Runnable> drainTasks = new IndexedTable<>();
+    private final InstrumentRegistry instrumentRegistry;
+    private final OrderJournal journal;
+    private final ScheduledExecutorService maintenanceScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final TimerWheel<Long> expiryWheel =
+            new TimerWheel<>(EXPIRY_TICK_MS, EXPIRY_WHEEL_LEVELS, System.currentTimeMillis());
+    private final LocalTime sessionClose;
+    private final ZoneId sessionZone;
+    private volatile long nextSessionCloseMillis;
+    private final TransactionUpdateReporter updateReporter;
     private final BlockingQueue<OrderTask> orderTaskQueue = new LinkedBlockingQueue<>();
     private final AtomicBoolean isProcessingOrders = new AtomicBoolean(false);
 
-    public OrderMatchingService(TradeFeignService tradeFeign) {
-        this.tradeFeign = tradeFeign;
+    public OrderMatchingService(TransactionUpdateReporter updateReporter, MatchingConfig config,
+                                InstrumentRegistry instrumentRegistry) {
+        this.updateReporter = updateReporter;
+        this.instrumentRegistry = instrumentRegistry;
+        this.instrumentExecutor = config.shards() > 0
+                ? new ShardedInstrumentExecutor(config.shards())
+                : new LockingInstrumentExecutor();
+        this.journal = config.journalDir() == null || config.journalDir().isBlank()
+                ? OrderJournal.disabled()
+                : new MappedOrderJournal(Path.of(config.journalDir()), config.journalSegmentMb() << 20);
+        this.sessionClose = LocalTime.parse(config.sessionClose());
+        this.sessionZone = ZoneId.of(config.sessionZone());
+        recoverFromJournal(config);
+        maintenanceScheduler.scheduleAtFixedRate(this::expireOrders, EXPIRY_TICK_MS, EXPIRY_TICK_MS, TimeUnit.MILLISECONDS);
         startOrderProcessor();
     }
 
@@ -41,56 +96,259 @@ public class OrderMatchingService implements OrderMatchingPort {
         orderTaskQueue.offer(new OrderTask(command));
     }
 
+    @Override
+    public List<TransactionResult> executeTransactions(List<TransactionCommand> commands) {
+        TransactionResult[] results = new TransactionResult[commands.size()];
+        Map<Integer, List<Integer>> placementsByInstrument = new LinkedHashMap<>();
+        List<TradeResponse> orders = new ArrayList<>(commands.size());
+        boolean[] sides = new boolean[commands.size()];
+
+        for (int i = 0; i < commands.size(); i++) {
+            TransactionCommand command = commands.get(i);
+            TradeResponse order = switch (command) {
+                case TransactionCommand.PlaceBuy(var req) -> { sides[i] = true; yield req; }
+                case TransactionCommand.PlaceSell(var req) -> req;
+                case TransactionCommand.UpdateStatus(var id, var status, var price) -> {
+                    updateReporter.report(new TransactionUpdateRecord(id, price, status));
+                    results[i] = TransactionResult.accepted(id);
+                    yield null;
+                }
+                case TransactionCommand.Cancel(var id) -> {
+                    results[i] = cancelOrder(id)
+                            ? TransactionResult.accepted(id)
+                            : TransactionResult.rejected(id, "Order not found");
+                    yield null;
+                }
+            };
+            orders.add(order);
+            if (order == null) continue;
+            try {
+                order.request().orderCategory().validateTradeRequest(order.request());
+            } catch (IllegalArgumentException e) {
+                results[i] = TransactionResult.rejected(order.transactionId(), e.getMessage());
+                continue;
+            }
+            placementsByInstrument.computeIfAbsent(instrumentRegistry.register(order.instrumentId()),
+                    k -> new ArrayList<>()).add(i);
+        }
+
+        // One critical section per instrument; different instruments are booked in parallel
+        List<CompletableFuture<Void>> groups = new ArrayList<>(placementsByInstrument.size());
+        placementsByInstrument.forEach((instrument, indexes) -> {
+            try {
+                groups.add(instrumentExecutor.submit(instrument, () -> {
+                    for (int index : indexes) {
+                        bookOrder(orders.get(index), sides[index], instrument, index, results);
+                    }
+                    return null;
+                }));
+            } catch (RuntimeException e) {
+                // Both modes run the group asynchronously, so its failures arrive through the future;
+                // submitting only throws when the executor rejects the task, e.g. during shutdown
+                groups.add(CompletableFuture.failedFuture(e));
+            }
+        });
+        int group = 0;
+        for (List<Integer> indexes : placementsByInstrument.values()) {
+            try {
+                groups.get(group++).join();
+            } catch (RuntimeException e) {
+                logger.error("Bulk placement failed for {} orders: {}", indexes.size(), e.getMessage(), e);
+            }
+            // Orders the failed group never reached are reported, not dropped
+            for (int index : indexes) {
+                if (results[index] == null) {
+                    results[index] = TransactionResult.rejected(orders.get(index).transactionId(), "Placement failed");
+                }
+            }
+        }
+
+        placementsByInstrument.values().forEach(indexes -> indexes.forEach(index -> {
+            if (!results[index].accepted()) return;
+            TradeResponse order = orders.get(index);
+            try {
+                order.request().orderCategory().postProcessOrder(this, order);
+            } catch (RuntimeException e) {
+                logger.error("Post-processing failed for order {}: {}", order.transactionId(), e.getMessage(), e);
+            }
+        }));
+        long accepted = Arrays.stream(results).filter(TransactionResult::accepted).count();
+        logger.info("Executed {} transactions in bulk across {} instruments: {} accepted, {} rejected",
+                commands.size(), placementsByInstrument.size(), accepted, commands.size() - accepted);
+        return Arrays.asList(results);
+    }
+
+    // A failing order is rejected on its own, so the rest of its instrument's group still books
+    private void bookOrder(TradeResponse order, boolean isBuy, int instrument, int index, TransactionResult[] results) {
+        boolean inserted;
+        try {
+            inserted = insertOrder(order, isBuy, instrument);
+        } catch (RuntimeException e) {
+            logger.error("Failed to place order {}: {}", order.transactionId(), e.getMessage(), e);
+            results[index] = TransactionResult.rejected(order.transactionId(), "Placement failed: " + e.getMessage());
+            return;
+        }
+        if (!inserted) {
+            results[index] = TransactionResult.rejected(order.transactionId(), "Duplicate transaction");
+            return;
+        }
+        // The order is resting from here on, so it is accepted even if journaling fails
+        results[index] = TransactionResult.accepted(order.transactionId());
+        try {
+            journal.placed(order, isBuy, intradayExpiry.getOrDefault(order.transactionId(), 0L));
+        } catch (RuntimeException e) {
+            logger.error("Order {} is resting but was not journaled: {}", order.transactionId(), e.getMessage(), e);
+        }
+    }
+
     @Override
     public void onPriceUpdate(String instrumentId, MarketQuotes quote) {
         if (quote.getLatestTradedPrice() == 0) return;
-        executor.execute(() -> processPriceUpdate(instrumentId, quote));
+        // Ticker and quote packets carry no depth, and matching needs a real bid and ask; the
+        // binary feed skips them the same way
+        var depth = quote.getDepthDetails();
+        if (depth == null || depth.getBuy() == null || depth.getBuy().isEmpty()
+                || depth.getSell() == null || depth.getSell().isEmpty()) {
+            return;
+        }
+        onPriceUpdate(instrumentRegistry.register(instrumentId), quote.getLatestTradedPrice(),
+                depth.getBuy().getFirst().getPrice(), depth.getSell().getFirst().getPrice());
+    }
+
+    @Override
+    public void onPriceUpdate(int instrument, double lastPrice, double bestBid, double bestAsk) {
+        if (lastPrice == 0) return;
+        if (quoteMailbox.offer(instrument, bestBid, bestAsk)) {
+            instrumentExecutor.dispatch(instrument, drainTasks.computeIfAbsent(instrument,
+                    index -> () -> quoteMailbox.drain(index, quoteMatcher)));
+        }
+    }
+
+    /**
+     * Returns how many ticks were overwritten by a newer quote before matching picked them up.
+     *
+     * @return conflated tick count per instrument
+     */
+    public Map<String, Long> getConflatedTicks() {
+        Map<String, Long> conflated = new HashMap<>();
+        for (int instrument = 0; instrument < instrumentRegistry.size(); instrument++) {
+            long count = quoteMailbox.conflatedCount(instrument);
+            if (count > 0) {
+                conflated.put(instrumentRegistry.instrumentId(instrument), count);
+            }
+        }
+        return conflated;
     }
 
     /**
-     * Updates the price of an existing order in the queue.
+     * Updates the price of an existing order in the queue. In sharded mode the amend runs on the
+     * instrument's shard and this call waits for it.
      *
      * @param transactionId The ID of the order to update
      * @param newPrice      The new asked price
      * @return true if updated, false if order not found
      */
     public boolean updateOrderPrice(long transactionId, double newPrice, double priceWhenUpdated) {
-        TradeResponse existing = orderLookup.get(transactionId);
-        if (existing == null) {
+        OrderNode node = orderLookup.get(transactionId);
+        if (node == null) {
             logger.warn("Order not found for update: {}", transactionId);
             return false;
         }
 
+        TradeResponse existing = node.order();
         String stockSymbol = existing.instrumentId();
+        int instrument = instrumentRegistry.register(stockSymbol);
         boolean isBuy = existing.request().orderType() == OrderType.BUY;
-        Map<String, ConcurrentSkipListSet<TradeResponse>> queues = isBuy ? buyOrderQueues : sellOrderQueues;
 
-        ConcurrentSkipListSet<TradeResponse> queue = queues.get(stockSymbol);
-        if (queue == null || !queue.contains(existing)) {
-            logger.warn("Order {} not in queue for stock {}", transactionId, stockSymbol);
+        TradeResponse updated = existing.withAskedPrice(newPrice, priceWhenUpdated);
+
+        return instrumentExecutor.call(instrument, () -> {
+            if (!node.side().remove(node)) {
+                logger.warn("Order {} not in queue for stock {}", transactionId, stockSymbol);
+                return false;
+            }
+            orderLookup.put(transactionId, addToBook(updated, isBuy, instrument));
+            journal.amended(transactionId, newPrice, priceWhenUpdated);
+            logger.info("Updated order {} price from {} to {} in {} queue for stock {}",
+                    transactionId, existing.request().askedPrice(), newPrice, isBuy ? "buy" : "sell", stockSymbol);
+            return true;
+        });
+    }
+
+    /**
+     * Cancels a resting order and reports it as CANCELLED. The order is found through the
+     * transaction lookup and unlinked from its price level in O(1).
+     *
+     * @param transactionId The ID of the order to cancel
+     * @return true if the order was resting and its cancel has been queued, false if not found
+     */
+    public boolean cancelOrder(long transactionId) {
+        OrderNode node = orderLookup.get(transactionId);
+        if (node == null) {
+            logger.warn("Order not found for cancel: {}", transactionId);
             return false;
         }
+        String stockSymbol = node.order().instrumentId();
+        instrumentExecutor.execute(instrumentRegistry.register(stockSymbol), () -> {
+            if (cancelResting(transactionId)) {
+                logger.info("Cancelled order {} for stock {}", transactionId, stockSymbol);
+            }
+        });
+        return true;
+    }
 
-        TradeRequest updatedRequest = existing.request().withAskedPrice(newPrice);
-        TradeResponse updated = new TradeResponse(updatedRequest,
-                existing.transactionId(),
-                existing.instrumentId(),
-                existing.isShortSell(),
-                priceWhenUpdated
-        );
+    private boolean cancelResting(long transactionId) {
+        // Looked up again on the book's thread: an amend may have replaced the node meanwhile
+        OrderNode node = orderLookup.get(transactionId);
+        if (node == null || !node.side().remove(node)) return false;
+        orderLookup.remove(transactionId);
+        loadedTransactionIds.remove(transactionId);
+        intradayExpiry.remove(transactionId);
+        journal.cancelled(transactionId);
+        updateReporter.report(new TransactionUpdateRecord(
+                transactionId, node.order().getAskedPrice(), TransactionStatus.CANCELLED));
+        return true;
+    }
 
-        ReadWriteLock lock = stockLocks.computeIfAbsent(stockSymbol, k -> new ReentrantReadWriteLock());
-        lock.writeLock().lock();
+    private void expireOrders() {
         try {
-            queue.remove(existing);
-            queue.add(updated);
-            orderLookup.put(transactionId, updated);
-            logger.info("Updated order {} price from {} to {} in {} queue for stock {}",
-                    transactionId, existing.request().askedPrice(), newPrice, isBuy ? "buy" : "sell", stockSymbol);
-            return true;
-        } finally {
-            lock.writeLock().unlock();
+            expiryWheel.advance(System.currentTimeMillis(), this::expireBatch);
+        } catch (RuntimeException e) {
+            logger.error("Order expiry failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cancels a batch of INTRADAY orders that reached session close, one task per instrument.
+     * Orders that were filled or cancelled in the meantime are no longer in the lookup and skipped.
+     */
+    private void expireBatch(List<Long> transactionIds) {
+        Map<String, List<Long>> byInstrument = new HashMap<>();
+        for (Long transactionId : transactionIds) {
+            OrderNode node = orderLookup.get(transactionId);
+            if (node != null) {
+                byInstrument.computeIfAbsent(node.order().instrumentId(), k -> new ArrayList<>()).add(transactionId);
+            }
+        }
+        byInstrument.forEach((instrumentId, ids) ->
+                instrumentExecutor.execute(instrumentRegistry.register(instrumentId), () -> {
+                    int expired = 0;
+                    for (long transactionId : ids) {
+                        if (cancelResting(transactionId)) expired++;
+                    }
+                    logger.info("Expired {} INTRADAY orders for stock {} at session close", expired, instrumentId);
+                }));
+    }
+
+    private long nextSessionClose() {
+        long now = System.currentTimeMillis();
+        if (now >= nextSessionCloseMillis) {
+            ZonedDateTime current = ZonedDateTime.now(sessionZone);
+            ZonedDateTime close = current.with(sessionClose);
+            if (!close.isAfter(current)) close = close.plusDays(1);
+            nextSessionCloseMillis = close.toInstant().toEpochMilli();
         }
+        return nextSessionCloseMillis;
     }
 
     private void startOrderProcessor() {
@@ -135,59 +393,103 @@ public class OrderMatchingService implements OrderMatchingPort {
                 }
             }
             case TransactionCommand.UpdateStatus(var id, var status, var price) ->
-                    tradeFeign.updateTradeTransaction(new TransactionUpdateRecord(id, price, status));
+                    updateReporter.report(new TransactionUpdateRecord(id, price, status));
+            case TransactionCommand.Cancel(var id) -> cancelOrder(id);
         }
     }
 
-    private void processPriceUpdate(String stockSymbol, MarketQuotes quotes) {
-        ReadWriteLock lock = stockLocks.computeIfAbsent(stockSymbol, k -> new ReentrantReadWriteLock());
-        lock.writeLock().lock();
-        try {
-            processOrdersForPrice(stockSymbol, quotes);
-        } finally {
-            lock.writeLock().unlock();
-        }
+    /**
+     * Runs one match pass for the instrument and waits for it, bypassing the quote mailbox.
+     * Used by the benchmarks to time matching on its own.
+     */
+    void matchNow(int instrument, double bestBid, double bestAsk) {
+        instrumentExecutor.call(instrument, () -> {
+            processOrdersForPrice(instrument, bestBid, bestAsk);
+            return null;
+        });
     }
 
-    private void processOrdersForPrice(String stockSymbol, MarketQuotes quotes) {
-        processOrders(stockSymbol, quotes, buyOrderQueues, true);
-        processOrders(stockSymbol, quotes, sellOrderQueues, false);
+    private void processOrdersForPrice(int instrument, double bestBid, double bestAsk) {
+        processOrders(buyOrderQueues.get(instrument), bestAsk, true);
+        processOrders(sellOrderQueues.get(instrument), bestBid, false);
+
+        TriggerBook triggers = triggerBooks.get(instrument);
+        if (triggers != null && !triggers.isEmpty()) {
+            processTriggers(triggers.rising(true), bestAsk, true);
+            processTriggers(triggers.falling(true), bestAsk, true);
+            processTriggers(triggers.rising(false), bestBid, false);
+            processTriggers(triggers.falling(false), bestBid, false);
+        }
     }
 
-    private void processOrders(String stockSymbol, MarketQuotes quotes,
-                               Map<String, ConcurrentSkipListSet<TradeResponse>> orderQueues, boolean isBuy) {
-        ConcurrentSkipListSet<TradeResponse> orders = orderQueues.get(stockSymbol);
+    private void processOrders(OrderBookSide orders, double price, boolean isBuy) {
         if (orders == null || orders.isEmpty()) return;
 
-        Iterator<TradeResponse> iterator = orders.iterator();
-        while (iterator.hasNext()) {
-            TradeResponse order = iterator.next();
-            TradeRequest request = order.request();
-
-            double price = isBuy
-                    ? quotes.getDepthDetails().getSell().getFirst().getPrice()
-                    : quotes.getDepthDetails().getBuy().getFirst().getPrice();
-
-            boolean shouldMatch = shouldMatchOrder(
-                    request.orderCategory(), request.askedPrice(), request.stopLossPrice(),
-                    request.targetPrice(), price, order.priceWhenOrderPlaced(), isBuy, order.isShortSell()
-            );
-
-            if (shouldMatch) {
-                logger.info("Price matched for transaction ID {}, Price When Order Placed : {} | Asked Price : {} | Executed Price : {}"
-                        , request.transactionId(), order.priceWhenOrderPlaced(),order.getAskedPrice(),price);
-                iterator.remove();
-                TransactionUpdateRecord updateRecord = new TransactionUpdateRecord(
-                        order.transactionId(), price, TransactionStatus.COMPLETED
+        // Levels are visited front first and orders inside a level in arrival order; matching
+        // stops at the first order that does not match, as the sorted set walk did before.
+        while (!orders.isEmpty()) {
+            OrderNode node = orders.front().head();
+            while (node != null) {
+                OrderNode next = node.next();
+                TradeResponse order = node.order();
+                TradeRequest request = order.request();
+
+                boolean shouldMatch = shouldMatchOrder(
+                        request.orderCategory(), request.askedPrice(), request.stopLossPrice(),
+                        request.targetPrice(), price, order.priceWhenOrderPlaced(), isBuy, order.isShortSell()
                 );
-                completeTransaction(updateRecord);
-                orderLookup.remove(order.transactionId());
-            } else {
-                break;
+
+                if (!shouldMatch) {
+                    return;
+                }
+                fill(node, price);
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * Fires trigger orders whose trigger the price has crossed. Levels are visited front first
+     * and the walk stops at the first level that is not crossed, so untouched triggers cost
+     * nothing; a crossed order that fails its full match rule stays in place.
+     */
+    private void processTriggers(OrderBookSide triggers, double price, boolean isBuy) {
+        if (triggers.isEmpty() || price == 0.0) return;
+        long priceKey = OrderBookSide.priceKey(price);
+        int rank = 0;
+        while (rank < triggers.levelCount()) {
+            PriceLevel level = triggers.levelAt(rank);
+            boolean crossed = triggers.isAscending() ? level.priceKey() <= priceKey : level.priceKey() >= priceKey;
+            if (!crossed) return;
+            OrderNode node = level.head();
+            while (node != null) {
+                OrderNode next = node.next();
+                TradeResponse order = node.order();
+                TradeRequest request = order.request();
+                if (shouldMatchOrder(request.orderCategory(), request.askedPrice(), request.stopLossPrice(),
+                        request.targetPrice(), price, order.priceWhenOrderPlaced(), isBuy, order.isShortSell())) {
+                    fill(node, price);
+                }
+                node = next;
             }
+            // An emptied level has been dropped, which moves the next one into this rank
+            if (!level.isEmpty()) rank++;
         }
     }
 
+    private void fill(OrderNode node, double price) {
+        TradeResponse order = node.order();
+        logger.info("Price matched for transaction ID {}, Price When Order Placed : {} | Asked Price : {} | Executed Price : {}"
+                , order.request().transactionId(), order.priceWhenOrderPlaced(),order.getAskedPrice(),price);
+        node.side().remove(node);
+        journal.filled(order.transactionId(), price);
+        TransactionUpdateRecord updateRecord = new TransactionUpdateRecord(
+                order.transactionId(), price, TransactionStatus.COMPLETED
+        );
+        completeTransaction(updateRecord);
+        orderLookup.remove(order.transactionId());
+    }
+
     private boolean shouldMatchOrder(OrderCategory category, Double askedPrice, Double stopLossPrice,
                                      Double targetPrice, Double price, Double priceWhenOrderPlaced, boolean isBuy, boolean shortSell) {
         if(price == 0.0)
@@ -212,32 +514,119 @@ public class OrderMatchingService implements OrderMatchingPort {
     }
 
     private void completeTransaction(TransactionUpdateRecord order) {
-        executor.execute(()->{
-            tradeFeign.updateTradeTransaction(order);
-            loadedTransactionIds.remove(order.id());
-            logger.debug("Completed transaction: {}", order);
-        });
-
+        updateReporter.report(order);
+        loadedTransactionIds.remove(order.id());
+        intradayExpiry.remove(order.id());
+        logger.debug("Completed transaction: {}", order);
     }
 
     private void placeOrder(TradeResponse order, boolean isBuy) {
         if (loadedTransactionIds.contains(order.transactionId())) return;
         String stockSymbol = order.instrumentId();
-        Map<String, ConcurrentSkipListSet<TradeResponse>> queues = isBuy ? buyOrderQueues : sellOrderQueues;
-        Comparator<TradeResponse> comparator = isBuy
-                ? Comparator.comparingDouble(TradeResponse::getAskedPrice)
-                : Comparator.comparingDouble(TradeResponse::getAskedPrice).reversed();
+        int instrument = instrumentRegistry.register(stockSymbol);
+
+        instrumentExecutor.execute(instrument, () -> {
+            if (insertOrder(order, isBuy, instrument)) {
+                journal.placed(order, isBuy, intradayExpiry.getOrDefault(order.transactionId(), 0L));
+                logger.debug("Placed {} order for stock {}: {}", isBuy ? "buy" : "sell", stockSymbol, order);
+            }
+        });
+    }
+
+    private boolean insertOrder(TradeResponse order, boolean isBuy, int instrument) {
+        return insertOrder(order, isBuy, instrument, 0);
+    }
 
-        ReadWriteLock lock = stockLocks.computeIfAbsent(stockSymbol, k -> new ReentrantReadWriteLock());
-        lock.writeLock().lock();
+    /**
+     * @param expiresAtMillis session close an INTRADAY order expires at, or 0 for the next one
+     */
+    private boolean insertOrder(TradeResponse order, boolean isBuy, int instrument, long expiresAtMillis) {
+        // Re-checked here: in sharded mode the insert runs later on the shard thread
+        if (!loadedTransactionIds.add(order.transactionId())) return false;
+        orderLookup.put(order.transactionId(), addToBook(order, isBuy, instrument));
+        if (order.request().orderValidity() == OrderValidity.INTRADAY) {
+            long expiresAt = expiresAtMillis != 0 ? expiresAtMillis : nextSessionClose();
+            intradayExpiry.put(order.transactionId(), expiresAt);
+            expiryWheel.schedule(order.transactionId(), expiresAt);
+        }
+        return true;
+    }
+
+    /**
+     * Rests the order in the trigger index for stop-loss and bracket orders, in the limit book
+     * otherwise.
+     */
+    private OrderNode addToBook(TradeResponse order, boolean isBuy, int instrument) {
+        if (TriggerBook.isTriggerOrder(order.request().orderCategory())) {
+            return triggerBooks.computeIfAbsent(instrument, k -> new TriggerBook()).add(order, isBuy);
+        }
+        IndexedTable<OrderBookSide> queues = isBuy ? buyOrderQueues : sellOrderQueues;
+        return queues.computeIfAbsent(instrument,
+                        k -> isBuy ? OrderBookSide.ascending() : OrderBookSide.descending())
+                .add(order);
+    }
+
+    private void recoverFromJournal(MatchingConfig config) {
+        if (!journal.isEnabled()) return;
+        List<RestingOrder> restingOrders = journal.replay();
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        // Runs before the order processor starts, so nothing else touches the books yet
+        for (RestingOrder resting : restingOrders) {
+            TradeResponse order = resting.order();
+            // An INTRADAY order whose session closed while the service was down is not carried
+            // into the next one
+            if (order.request().orderValidity() == OrderValidity.INTRADAY
+                    && resting.expiresAtMillis() != 0 && resting.expiresAtMillis() <= now) {
+                journal.cancelled(order.transactionId());
+                updateReporter.report(new TransactionUpdateRecord(
+                        order.transactionId(), order.getAskedPrice(), TransactionStatus.CANCELLED));
+                expired++;
+                continue;
+            }
+            insertOrder(order, resting.isBuy(), instrumentRegistry.register(order.instrumentId()),
+                    resting.expiresAtMillis());
+        }
+        logger.info("Recovered {} resting orders from journal, {} INTRADAY orders expired while down",
+                restingOrders.size() - expired, expired);
+        maintenanceScheduler.scheduleWithFixedDelay(this::snapshotJournal,
+                config.journalSnapshotSec(), config.journalSnapshotSec(), TimeUnit.SECONDS);
+    }
+
+    private void snapshotJournal() {
         try {
-            queues.computeIfAbsent(stockSymbol, k -> new ConcurrentSkipListSet<>(comparator))
-                    .add(order);
-            loadedTransactionIds.add(order.transactionId());
-            orderLookup.put(order.transactionId(), order);
-            logger.debug("Placed {} order for stock {}: {}", isBuy ? "buy" : "sell", stockSymbol, order);
-        } finally {
-            lock.writeLock().unlock();
+            long sequence = journal.beginCompaction();
+            List<RestingOrder> liveOrders = new ArrayList<>(orderLookup.size());
+            // Each book is copied on its own shard (or under its lock) so the copy is consistent
+            for (int index = 0; index < instrumentRegistry.size(); index++) {
+                int instrument = index;
+                if (buyOrderQueues.get(instrument) == null && sellOrderQueues.get(instrument) == null
+                        && triggerBooks.get(instrument) == null) continue;
+                instrumentExecutor.call(instrument, () -> {
+                    collectResting(buyOrderQueues.get(instrument), true, liveOrders);
+                    collectResting(sellOrderQueues.get(instrument), false, liveOrders);
+                    TriggerBook triggers = triggerBooks.get(instrument);
+                    if (triggers != null) {
+                        collectResting(triggers.rising(true), true, liveOrders);
+                        collectResting(triggers.falling(true), true, liveOrders);
+                        collectResting(triggers.rising(false), false, liveOrders);
+                        collectResting(triggers.falling(false), false, liveOrders);
+                    }
+                    return null;
+                });
+            }
+            journal.completeCompaction(sequence, liveOrders);
+        } catch (RuntimeException e) {
+            logger.error("Order journal snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void collectResting(OrderBookSide side, boolean isBuy, List<RestingOrder> into) {
+        if (side == null) return;
+        for (int rank = 0; rank < side.levelCount(); rank++) {
+            for (OrderNode node = side.levelAt(rank).head(); node != null; node = node.next()) {
+                into.add(new RestingOrder(node.order(), isBuy, intradayExpiry.getOrDefault(node.transactionId(), 0L)));
+            }
         }
     }
 
@@ -249,5 +638,12 @@ public class OrderMatchingService implements OrderMatchingPort {
         placeOrder(order, false);
     }
 
+    @PreDestroy
+    public void shutdown() {
+        instrumentExecutor.shutdown();
+        maintenanceScheduler.shutdownNow();
+        journal.close();
+    }
+
     private record OrderTask(TransactionCommand command) {}
 }
\ No newline at end of file
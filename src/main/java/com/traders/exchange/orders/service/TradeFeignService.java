@@ -29,4 +29,7 @@ public interface TradeFeignService {
     @PostMapping("/api/portfolio/transactions/update")
     void updateTradeTransaction(@RequestBody TransactionUpdateRecord updateRecord);
 
+    @PostMapping("/api/portfolio/transactions/update/bulk")
+    void updateTradeTransactions(@RequestBody List<TransactionUpdateRecord> updateRecords);
+
 }
\ No newline at end of file
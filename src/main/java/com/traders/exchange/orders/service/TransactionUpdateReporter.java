@@ -0,0 +1,220 @@
+package com.traders.exchange.orders.service;
+
+import com.traders.exchange.domain.TransactionUpdateRecord;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reports transaction updates to the portfolio service in micro-batches.
+ * Updates are gathered for up to {@code reportWindowMs} or {@code reportBatchSize} records and
+ * sent in one bulk call. If the portfolio service has no bulk endpoint the reporter falls back
+ * to one call per record for the rest of its lifetime; a bulk call that fails otherwise is retried
+ * one record at a time, so a failure loses no more than the records that fail on their own.
+ * <p>
+ * Each batch is split into {@code reportMaxInFlight} lanes by transaction id. A lane sends its
+ * batches one after another, so the updates of one transaction reach the portfolio service in the
+ * order they were reported, while different lanes send in parallel.
+ */
+@Service
+public class TransactionUpdateReporter {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionUpdateReporter.class);
+    private static final long INITIAL_BACKOFF_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+    // Queued by shutdown to tell the collector to flush and stop; compared by identity
+    private static final TransactionUpdateRecord SHUTDOWN = new TransactionUpdateRecord(null, null, null);
+
+    private final TradeFeignService tradeFeign;
+    private final int batchSize;
+    private final long windowNanos;
+    private final int maxRetries;
+    private final Semaphore inFlight;
+    private final BlockingQueue<TransactionUpdateRecord> pending = new LinkedBlockingQueue<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService[] lanes;
+    private final Future<?> collector;
+    private volatile boolean bulkSupported = true;
+
+    public TransactionUpdateReporter(TradeFeignService tradeFeign, MatchingConfig config) {
+        this.tradeFeign = tradeFeign;
+        this.batchSize = config.reportBatchSize();
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(config.reportWindowMs());
+        this.maxRetries = config.reportMaxRetries();
+        this.inFlight = new Semaphore(config.reportMaxInFlight());
+        this.lanes = new ExecutorService[config.reportMaxInFlight()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("transaction-report-" + i).factory());
+        }
+        this.collector = executor.submit(this::collectBatches);
+    }
+
+    /**
+     * Queues an update for the next batch.
+     *
+     * @param updateRecord The update to report
+     */
+    public void report(TransactionUpdateRecord updateRecord) {
+        pending.offer(updateRecord);
+    }
+
+    private void collectBatches() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                TransactionUpdateRecord first = pending.take();
+                if (first == SHUTDOWN) {
+                    flushRemaining();
+                    return;
+                }
+                List<TransactionUpdateRecord> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                boolean closing = false;
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    TransactionUpdateRecord next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) break;
+                    if (next == SHUTDOWN) {
+                        closing = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+                if (closing) {
+                    flushRemaining();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Transaction update reporter interrupted with {} updates queued", pending.size(), e);
+            }
+        }
+    }
+
+    // Updates reported while shutting down still go out, in full batches without waiting
+    private void flushRemaining() throws InterruptedException {
+        List<TransactionUpdateRecord> rest = new ArrayList<>();
+        pending.drainTo(rest);
+        rest.removeIf(updateRecord -> updateRecord == SHUTDOWN);
+        for (int from = 0; from < rest.size(); from += batchSize) {
+            dispatch(new ArrayList<>(rest.subList(from, Math.min(rest.size(), from + batchSize))));
+        }
+    }
+
+    private void dispatch(List<TransactionUpdateRecord> batch) throws InterruptedException {
+        List<List<TransactionUpdateRecord>> byLane = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            byLane.add(new ArrayList<>());
+        }
+        for (TransactionUpdateRecord updateRecord : batch) {
+            byLane.get(Math.floorMod(Objects.hashCode(updateRecord.id()), lanes.length)).add(updateRecord);
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            List<TransactionUpdateRecord> laneBatch = byLane.get(i);
+            if (laneBatch.isEmpty()) continue;
+            inFlight.acquire();
+            lanes[i].execute(() -> {
+                try {
+                    send(laneBatch);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void send(List<TransactionUpdateRecord> batch) {
+        if (bulkSupported) {
+            try {
+                withRetry(() -> tradeFeign.updateTradeTransactions(batch), batch.size());
+                logger.debug("Reported {} transaction updates in one call", batch.size());
+                return;
+            } catch (FeignException.NotFound | FeignException.MethodNotAllowed | FeignException.NotImplemented e) {
+                bulkSupported = false;
+                logger.warn("Bulk transaction update endpoint unavailable ({}), falling back to per-record updates", e.status());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to report {} transaction updates in one call, sending them one by one: {}",
+                        batch.size(), e.getMessage());
+            }
+        }
+        for (TransactionUpdateRecord updateRecord : batch) {
+            try {
+                withRetry(() -> tradeFeign.updateTradeTransaction(updateRecord), 1);
+            } catch (RuntimeException e) {
+                logger.error("Failed to report transaction update {}: {}", updateRecord, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void withRetry(Runnable call, int records) {
+        long backoff = INITIAL_BACKOFF_MS;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                call.run();
+                return;
+            } catch (FeignException.NotFound | FeignException.MethodNotAllowed | FeignException.NotImplemented e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) throw e;
+                logger.warn("Reporting {} transaction updates failed (attempt {}), retrying in {}ms: {}",
+                        records, attempt + 1, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff <<= 1;
+            }
+        }
+    }
+
+    /**
+     * Flushes queued updates and waits up to {@value #SHUTDOWN_TIMEOUT_MS}ms for every batch,
+     * retries included, to be sent before giving up on the rest.
+     */
+    @PreDestroy
+    public void shutdown() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MS);
+        pending.offer(SHUTDOWN);
+        try {
+            collector.get(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            executor.shutdown();
+            for (ExecutorService lane : lanes) {
+                lane.shutdown();
+            }
+            if (awaitLanes(deadline)) return;
+            logger.warn("Transaction update reports still in flight after {}ms; abandoning them", SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Transaction update reporter did not flush {} queued updates: {}", pending.size(), e.toString());
+        }
+        executor.shutdownNow();
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private boolean awaitLanes(long deadline) throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) return false;
+        }
+        return true;
+    }
+}
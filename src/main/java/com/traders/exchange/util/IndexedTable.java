@@ -0,0 +1,81 @@
+package com.traders.exchange.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * Growable array keyed by a dense int index, such as an instrument index from
+ * {@link com.traders.exchange.domain.InstrumentRegistry}. Storage is split into fixed-size chunks
+ * that are never moved once allocated, so reads are two array loads and never lock; only
+ * allocating a chunk or creating a missing value synchronizes.
+ */
+public final class IndexedTable<T> {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile AtomicReferenceArray<T>[] chunks;
+
+    @SuppressWarnings("unchecked")
+    public IndexedTable() {
+        this.chunks = new AtomicReferenceArray[1];
+    }
+
+    /**
+     * @return the value at the index, or null if none has been set
+     */
+    public T get(int index) {
+        AtomicReferenceArray<T>[] current = chunks;
+        int chunk = index >>> CHUNK_BITS;
+        if (chunk >= current.length || current[chunk] == null) return null;
+        return current[chunk].get(index & CHUNK_MASK);
+    }
+
+    /**
+     * Returns the value at the index, creating it with the factory if absent. The factory runs at
+     * most once per index.
+     */
+    public T computeIfAbsent(int index, IntFunction<? extends T> factory) {
+        T value = get(index);
+        if (value != null) return value;
+        synchronized (this) {
+            AtomicReferenceArray<T> chunk = chunkFor(index);
+            value = chunk.get(index & CHUNK_MASK);
+            if (value == null) {
+                value = factory.apply(index);
+                chunk.set(index & CHUNK_MASK, value);
+            }
+            return value;
+        }
+    }
+
+    public void set(int index, T value) {
+        synchronized (this) {
+            chunkFor(index).set(index & CHUNK_MASK, value);
+        }
+    }
+
+    /**
+     * @return one past the highest index that can currently hold a value
+     */
+    public int capacity() {
+        return chunks.length << CHUNK_BITS;
+    }
+
+    // Callers hold the monitor
+    private AtomicReferenceArray<T> chunkFor(int index) {
+        if (index < 0) throw new IndexOutOfBoundsException("Negative index: " + index);
+        int chunk = index >>> CHUNK_BITS;
+        AtomicReferenceArray<T>[] current = chunks;
+        if (chunk >= current.length) {
+            current = Arrays.copyOf(current, Math.max(chunk + 1, current.length * 2));
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new AtomicReferenceArray<>(CHUNK_SIZE);
+        }
+        // Republished so readers see the new chunk reference
+        chunks = current;
+        return current[chunk];
+    }
+}
@@ -0,0 +1,49 @@
+package com.traders.exchange.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link LatencyHistogram} that starts afresh every interval, so percentiles describe recent
+ * traffic instead of everything since startup. Values go to the current interval and readers see
+ * the last completed one; an interval with nothing recorded reads as empty.
+ * <p>
+ * Rotation allocates one histogram per interval and is done by whichever recorder or reader first
+ * sees the interval over. A value recorded while the intervals swap may land in the one just
+ * completed.
+ */
+public final class IntervalLatencyHistogram {
+    private final long intervalNanos;
+    private final AtomicLong intervalEnd;
+    private volatile LatencyHistogram current = new LatencyHistogram();
+    private volatile LatencyHistogram completed = new LatencyHistogram();
+
+    public IntervalLatencyHistogram(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.intervalEnd = new AtomicLong(System.nanoTime() + intervalNanos);
+    }
+
+    /**
+     * @param nowNanos the caller's {@link System#nanoTime()}, so the clock is read once per value
+     */
+    public void record(long nanos, long nowNanos) {
+        rotateIfDue(nowNanos);
+        current.record(nanos);
+    }
+
+    /**
+     * @return the histogram of the last completed interval
+     */
+    public LatencyHistogram completed() {
+        rotateIfDue(System.nanoTime());
+        return completed;
+    }
+
+    private void rotateIfDue(long nowNanos) {
+        long end = intervalEnd.get();
+        if (nowNanos - end < 0 || !intervalEnd.compareAndSet(end, nowNanos + intervalNanos)) return;
+        LatencyHistogram finished = current;
+        current = new LatencyHistogram();
+        // After a quiet spell the values in hand are older than the interval just ended
+        completed = nowNanos - end < intervalNanos ? finished : new LatencyHistogram();
+    }
+}
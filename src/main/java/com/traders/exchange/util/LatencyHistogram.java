@@ -0,0 +1,115 @@
+package com.traders.exchange.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the manner of HdrHistogram: values
+ * below 128ns get a bucket each, and every power of two above that is split into 64 buckets, so
+ * any recorded value is reported within 1/64 (about 1.6%) of itself. Recording is a handful of
+ * atomic increments on preallocated arrays and never allocates, so it can stay on in
+ * production; reading percentiles scans a snapshot of the counts.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+    // One group of half sub-buckets per shift from 1 up to the one that covers Long.MAX_VALUE
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS - 1) * HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param count       values recorded since creation
+     * @param meanMicros  mean of all recorded values
+     */
+    public record Summary(long count, double meanMicros, double p50Micros, double p99Micros,
+                          double p999Micros, double maxMicros) {}
+
+    /**
+     * Records one latency; negative values count as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max;
+        while (value > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, value)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long totalNanos() {
+        return totalNanos.get();
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value in the bucket holding the percentile, capped at the maximum
+     * recorded, or 0 if nothing has been recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        return valuesAtPercentiles(percentile)[0];
+    }
+
+    public Summary summary() {
+        long[] values = valuesAtPercentiles(50, 99, 99.9);
+        long recorded = count.get();
+        return new Summary(recorded, recorded == 0 ? 0 : totalNanos.get() / (recorded * 1000.0),
+                values[0] / 1000.0, values[1] / 1000.0, values[2] / 1000.0, maxNanos.get() / 1000.0);
+    }
+
+    private long[] valuesAtPercentiles(double... percentiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] values = new long[percentiles.length];
+        if (total == 0) return values;
+        long max = maxNanos.get();
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentiles[p]) / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    values[p] = Math.min(highestValueAt(i), max);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        // Shift that brings the value into [HALF_SUB_BUCKETS, SUB_BUCKETS)
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long lowestValueAt(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return subBucket << shift;
+    }
+
+    static long highestValueAt(int index) {
+        return index == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueAt(index + 1) - 1;
+    }
+}
@@ -1,17 +1,235 @@
 package com.traders.exchange.util;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Publishes events to observers asynchronously. Every observer gets its own bounded queue drained
+ * by its own virtual thread, so a slow observer only delays itself; what happens when its queue
+ * is full is chosen per observer with an {@link OverflowPolicy}. Delivery counts, drops and lag
+ * are kept per observer and reported by {@link #stats()}.
+ */
+public class Subject<T> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(Subject.class);
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public enum OverflowPolicy {
+        /** The publisher waits for room; nothing is lost. */
+        BLOCK,
+        /** The oldest queued event is discarded to make room. */
+        DROP_OLDEST,
+        /**
+         * A queued event with the same key is replaced in place, so only the latest per key is
+         * delivered; when the queue is full of distinct keys the oldest is discarded.
+         */
+        CONFLATE
+    }
 
-public class Subject<T> {
-    private final List<Consumer<T>> observers = new CopyOnWriteArrayList<>();
+    /**
+     * @param queued  events waiting for the observer
+     * @param maxLagNanos longest time an event has waited in the queue since the observer subscribed;
+     *                    reading the stats does not reset it, so any number of callers see the same value
+     */
+    public record SubscriberStats(String name, OverflowPolicy policy, long published, long delivered,
+                                  long dropped, long conflated, int queued, long maxLagNanos) {}
+
+    private final String name;
+    private final List<Subscriber<T>> observers = new CopyOnWriteArrayList<>();
+
+    public Subject() {
+        this("subject");
+    }
 
+    public Subject(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Subscribes with a queue of {@value #DEFAULT_CAPACITY} events that blocks the publisher
+     * when full.
+     */
     public void subscribe(Consumer<T> observer) {
-        observers.add(observer);
+        subscribe(observer, DEFAULT_CAPACITY, OverflowPolicy.BLOCK, null);
+    }
+
+    /**
+     * @param keyFunction key events are conflated by; required for {@link OverflowPolicy#CONFLATE}
+     */
+    public void subscribe(Consumer<T> observer, int capacity, OverflowPolicy policy, Function<T, ?> keyFunction) {
+        if (policy == OverflowPolicy.CONFLATE && keyFunction == null) {
+            throw new IllegalArgumentException("CONFLATE needs a key function");
+        }
+        String subscriberName = name + "-" + observers.size();
+        Subscriber<T> subscriber = new Subscriber<>(subscriberName, observer, Math.max(1, capacity), policy, keyFunction);
+        observers.add(subscriber);
+        subscriber.thread = Thread.ofVirtual().name(subscriberName).start(subscriber::drain);
     }
 
+    /**
+     * Queues the event for every observer and returns; only {@link OverflowPolicy#BLOCK}
+     * observers with a full queue make the caller wait.
+     */
     public void notifyObservers(T event) {
-        observers.forEach(observer -> observer.accept(event));
+        for (Subscriber<T> observer : observers) {
+            observer.enqueue(event);
+        }
+    }
+
+    public List<SubscriberStats> stats() {
+        return observers.stream().map(Subscriber::stats).toList();
+    }
+
+    /**
+     * Stops the delivery threads; queued events are dropped.
+     */
+    @Override
+    public void close() {
+        observers.forEach(Subscriber::close);
+    }
+
+    private static final class Entry<T> {
+        private T event;
+        private final Object key;
+        private final long enqueuedNanos;
+
+        private Entry(T event, Object key, long enqueuedNanos) {
+            this.event = event;
+            this.key = key;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private static final class Subscriber<T> {
+        private final String name;
+        private final Consumer<T> observer;
+        private final int capacity;
+        private final OverflowPolicy policy;
+        private final Function<T, ?> keyFunction;
+        private final ArrayDeque<Entry<T>> queue;
+        private final Map<Object, Entry<T>> pendingByKey;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final LongAdder published = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder conflated = new LongAdder();
+        private final AtomicLong maxLagNanos = new AtomicLong();
+        private volatile boolean running = true;
+        private Thread thread;
+
+        private Subscriber(String name, Consumer<T> observer, int capacity, OverflowPolicy policy,
+                           Function<T, ?> keyFunction) {
+            this.name = name;
+            this.observer = observer;
+            this.capacity = capacity;
+            this.policy = policy;
+            this.keyFunction = keyFunction;
+            this.queue = new ArrayDeque<>(capacity);
+            this.pendingByKey = policy == OverflowPolicy.CONFLATE ? new HashMap<>(capacity * 2) : null;
+        }
+
+        private void enqueue(T event) {
+            if (!running) return;
+            published.increment();
+            Object key = pendingByKey == null ? null : keyFunction.apply(event);
+            lock.lock();
+            try {
+                if (pendingByKey != null) {
+                    Entry<T> pending = pendingByKey.get(key);
+                    if (pending != null) {
+                        // Keeps its place in the queue and its original enqueue time
+                        pending.event = event;
+                        conflated.increment();
+                        return;
+                    }
+                }
+                while (queue.size() >= capacity) {
+                    if (policy == OverflowPolicy.BLOCK) {
+                        notFull.await();
+                        if (!running) return;
+                    } else {
+                        Entry<T> oldest = queue.poll();
+                        if (pendingByKey != null) pendingByKey.remove(oldest.key);
+                        dropped.increment();
+                    }
+                }
+                Entry<T> entry = new Entry<>(event, key, System.nanoTime());
+                queue.add(entry);
+                if (pendingByKey != null) pendingByKey.put(key, entry);
+                notEmpty.signal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drain() {
+            while (running) {
+                Entry<T> entry;
+                lock.lock();
+                try {
+                    while ((entry = queue.poll()) == null) {
+                        if (!running) return;
+                        notEmpty.await(1, TimeUnit.SECONDS);
+                    }
+                    if (pendingByKey != null) pendingByKey.remove(entry.key);
+                    notFull.signal();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+                maxLagNanos.accumulateAndGet(System.nanoTime() - entry.enqueuedNanos, Math::max);
+                try {
+                    observer.accept(entry.event);
+                } catch (RuntimeException e) {
+                    logger.error("Observer {} failed: {}", name, e.getMessage(), e);
+                }
+                delivered.increment();
+            }
+        }
+
+        private SubscriberStats stats() {
+            int queued;
+            lock.lock();
+            try {
+                queued = queue.size();
+            } finally {
+                lock.unlock();
+            }
+            return new SubscriberStats(name, policy, published.sum(), delivered.sum(), dropped.sum(),
+                    conflated.sum(), queued, maxLagNanos.get());
+        }
+
+        private void close() {
+            running = false;
+            lock.lock();
+            try {
+                queue.clear();
+                if (pendingByKey != null) pendingByKey.clear();
+                notFull.signalAll();
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (thread != null) thread.interrupt();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.traders.exchange.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel. Level 0 has one slot per tick, and each higher level has slots 64
+ * times wider, so scheduling is O(1) for any deadline and an entry is moved down at most once
+ * per level before it expires. Entries that expire on the same tick are handed over together as
+ * one batch.
+ * <p>
+ * Entries cannot be removed once scheduled; consumers are expected to ignore entries that are no
+ * longer relevant when they expire. Methods are synchronized so entries can be scheduled from any
+ * thread while a single driver advances the wheel; expired entries are handed to the consumer
+ * after the monitor is released, so the consumer may take other locks and schedule again.
+ *
+ * @param <T> type of the scheduled entries
+ */
+public class TimerWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final List<Entry<T>>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.wheels = new List[levels][SLOTS];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules the entry to expire on the first tick at or after the deadline.
+     *
+     * @param entry          The entry to schedule
+     * @param deadlineMillis Epoch millis at which the entry expires
+     */
+    public synchronized void schedule(T entry, long deadlineMillis) {
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        // The current tick's slot has already been handed out, so the earliest is the next one
+        place(new Entry<>(entry, deadlineTick), currentTick + 1);
+        size++;
+    }
+
+    /**
+     * Advances the wheel tick by tick up to the given time, handing each tick's expired entries
+     * to the consumer as one batch.
+     *
+     * @param nowMillis Current epoch millis
+     * @param expired   Receives the entries that expired on a tick
+     */
+    public void advance(long nowMillis, Consumer<List<T>> expired) {
+        for (List<T> batch : collectExpired(nowMillis)) {
+            expired.accept(batch);
+        }
+    }
+
+    private synchronized List<List<T>> collectExpired(long nowMillis) {
+        List<List<T>> batches = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            int slot = (int) (currentTick & SLOT_MASK);
+            List<Entry<T>> bucket = wheels[0][slot];
+            if (bucket == null || bucket.isEmpty()) continue;
+            wheels[0][slot] = null;
+            List<T> batch = new ArrayList<>(bucket.size());
+            bucket.forEach(e -> batch.add(e.value()));
+            size -= batch.size();
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        List<Entry<T>> bucket = wheels[level][slot];
+        if (bucket == null) return;
+        wheels[level][slot] = null;
+        // Cascading runs before the current tick expires, so entries due now still make it
+        bucket.forEach(entry -> place(entry, currentTick));
+    }
+
+    private void place(Entry<T> entry, long earliestTick) {
+        long deadlineTick = Math.max(entry.deadlineTick(), earliestTick);
+        for (int level = 0; level < levels; level++) {
+            int shift = SLOT_BITS * level;
+            long span = (deadlineTick >>> shift) - (currentTick >>> shift);
+            if (span < SLOTS) {
+                add(level, (int) ((deadlineTick >>> shift) & SLOT_MASK), entry);
+                return;
+            }
+        }
+        // Beyond the top level: park in its furthest slot and re-place when that slot cascades
+        int top = levels - 1;
+        add(top, (int) (((currentTick >>> (SLOT_BITS * top)) + SLOT_MASK) & SLOT_MASK), entry);
+    }
+
+    private void add(int level, int slot, Entry<T> entry) {
+        List<Entry<T>> bucket = wheels[level][slot];
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            wheels[level][slot] = bucket;
+        }
+        bucket.add(entry);
+    }
+
+    private record Entry<T>(T value, long deadlineTick) {}
+}
@@ -0,0 +1,198 @@
+package com.traders.exchange.util.ring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Preallocated single-producer ring buffer. The producer claims a sequence, fills the entry in
+ * place and publishes it; each {@link Stage} reads every entry in sequence order on its own
+ * thread, after the sequence it depends on (the producer's cursor or an upstream stage) has
+ * passed it. The producer waits when it would overwrite an entry a gating stage has not read
+ * yet, so a slow consumer pushes back on the feed instead of growing a queue.
+ * <p>
+ * {@link #next()} and {@link #publish(long)} must only be called from one thread.
+ */
+public final class RingBuffer<E> {
+    private static final Logger logger = LoggerFactory.getLogger(RingBuffer.class);
+
+    /**
+     * Consumes one published entry. The entry is only valid until the call returns.
+     */
+    @FunctionalInterface
+    public interface EventHandler<E> {
+        void onEvent(E event, long sequence);
+    }
+
+    private final Object[] entries;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence(-1);
+    private volatile Sequence[] gatingSequences = new Sequence[0];
+    // Producer-local state, never read by stages
+    private long nextSequence;
+    private long cachedGatingSequence = -1;
+
+    /**
+     * @param size rounded up to a power of two
+     */
+    public RingBuffer(int size, Supplier<E> factory, WaitStrategy waitStrategy) {
+        int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.entries = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Claims the next sequence, waiting while the ring is full.
+     */
+    public long next() {
+        long sequence = nextSequence;
+        long wrapPoint = sequence - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minimum;
+            while (wrapPoint > (minimum = minimumGatingSequence(sequence - 1))) {
+                LockSupport.parkNanos(1);
+            }
+            cachedGatingSequence = minimum;
+        }
+        nextSequence = sequence + 1;
+        return sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Makes the entry at the claimed sequence visible to stages.
+     */
+    public void publish(long sequence) {
+        cursor.set(sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    public Sequence cursor() {
+        return cursor;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * @return entries published but not yet read by the slowest gating stage
+     */
+    public long backlog() {
+        long published = cursor.get();
+        return published - minimumGatingSequence(published);
+    }
+
+    /**
+     * Creates a stage reading entries once {@code dependency} has passed them. Pass
+     * {@link #cursor()} to read straight after the producer, or another stage's
+     * {@link Stage#sequence()} to run behind it.
+     */
+    public Stage<E> stage(String name, Sequence dependency, EventHandler<E> handler) {
+        return new Stage<>(this, name, dependency, handler);
+    }
+
+    /**
+     * Makes the producer wait for these stages before reusing an entry. Only the last stage of
+     * each chain needs gating.
+     */
+    public synchronized void addGatingStages(Stage<?>... stages) {
+        Sequence[] updated = Arrays.copyOf(gatingSequences, gatingSequences.length + stages.length);
+        for (int i = 0; i < stages.length; i++) {
+            updated[gatingSequences.length + i] = stages[i].sequence();
+        }
+        gatingSequences = updated;
+    }
+
+    private long minimumGatingSequence(long fallback) {
+        long minimum = fallback;
+        for (Sequence sequence : gatingSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    /**
+     * One consumer of the ring, run on a dedicated thread by {@link #start(ThreadFactory)}.
+     */
+    public static final class Stage<E> implements Runnable {
+        private final RingBuffer<E> ring;
+        private final String name;
+        private final Sequence dependency;
+        private final EventHandler<E> handler;
+        private final Sequence sequence = new Sequence(-1);
+        private volatile boolean running = true;
+        private final BooleanSupplier isRunning = () -> running;
+        private Thread thread;
+
+        private Stage(RingBuffer<E> ring, String name, Sequence dependency, EventHandler<E> handler) {
+            this.ring = ring;
+            this.name = name;
+            this.dependency = dependency;
+            this.handler = handler;
+        }
+
+        public Sequence sequence() {
+            return sequence;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public Stage<E> start(ThreadFactory threadFactory) {
+            thread = threadFactory.newThread(this);
+            thread.setName(name);
+            thread.start();
+            return this;
+        }
+
+        /**
+         * Stops the stage after the batch it is processing; entries not yet read are dropped and
+         * the stage no longer holds the producer back.
+         */
+        public void halt() {
+            running = false;
+            sequence.set(Long.MAX_VALUE);
+            ring.waitStrategy.signalAllWhenBlocking();
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (running) {
+                // Capped by the cursor: a halted upstream stage reports Long.MAX_VALUE
+                long available = Math.min(ring.waitStrategy.waitFor(next, dependency, isRunning), ring.cursor.get());
+                if (available < next) continue;
+                for (; next <= available; next++) {
+                    try {
+                        handler.onEvent(ring.get(next), next);
+                    } catch (RuntimeException e) {
+                        // One bad entry must not stop the stage or stall the producer
+                        logger.error("Ring stage {} failed at sequence {}: {}", name, next, e.getMessage(), e);
+                    }
+                }
+                if (!running) return;
+                sequence.set(available);
+                ring.waitStrategy.signalAllWhenBlocking();
+            }
+        }
+    }
+}
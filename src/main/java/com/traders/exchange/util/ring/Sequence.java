@@ -0,0 +1,34 @@
+package com.traders.exchange.util.ring;
+
+/**
+ * Sequence counter shared between a {@link RingBuffer}'s producer and its stages. Padded on both
+ * sides so counters updated by different threads never share a cache line.
+ */
+public final class Sequence extends SequenceRhsPadding {
+
+    public Sequence(long initialValue) {
+        value = initialValue;
+    }
+
+    public long get() {
+        return value;
+    }
+
+    public void set(long newValue) {
+        value = newValue;
+    }
+}
+
+@SuppressWarnings("unused")
+class SequenceLhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class SequenceValue extends SequenceLhsPadding {
+    protected volatile long value;
+}
+
+@SuppressWarnings("unused")
+class SequenceRhsPadding extends SequenceValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
@@ -0,0 +1,149 @@
+package com.traders.exchange.util.ring;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a {@link RingBuffer} stage waits for the sequence it depends on to advance. The choice
+ * trades CPU for wake-up latency: {@code busy-spin} burns a core for the lowest latency,
+ * {@code blocking} costs nothing while idle but pays for a lock and a wake-up per batch.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits until the dependency reaches the sequence.
+     *
+     * @return the highest available sequence, at least {@code sequence}, or {@code sequence - 1}
+     * once {@code running} turns false
+     */
+    long waitFor(long sequence, Sequence dependency, BooleanSupplier running);
+
+    /**
+     * Called after a sequence is advanced, to wake stages that block.
+     */
+    default void signalAllWhenBlocking() {
+    }
+
+    /**
+     * @param name one of {@code blocking}, {@code sleeping}, {@code yielding}, {@code busy-spin}
+     */
+    static WaitStrategy of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT).replace('_', '-')) {
+            case "blocking" -> new Blocking();
+            case "sleeping" -> new Sleeping();
+            case "yielding" -> new Yielding();
+            case "busy-spin" -> new BusySpin();
+            default -> throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        };
+    }
+
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public long waitFor(long sequence, Sequence dependency, BooleanSupplier running) {
+            long available;
+            while ((available = dependency.get()) < sequence) {
+                if (!running.getAsBoolean()) return sequence - 1;
+                Thread.onSpinWait();
+            }
+            return available;
+        }
+    }
+
+    final class Yielding implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public long waitFor(long sequence, Sequence dependency, BooleanSupplier running) {
+            long available;
+            int counter = SPIN_TRIES;
+            while ((available = dependency.get()) < sequence) {
+                if (!running.getAsBoolean()) return sequence - 1;
+                if (counter > 0) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        }
+    }
+
+    /**
+     * Spins, then yields, then parks for short periods. Wakes faster than {@link Blocking} but
+     * keeps polling while idle, so every stage costs some CPU even when no ticks arrive.
+     */
+    final class Sleeping implements WaitStrategy {
+        private static final int RETRIES = 200;
+        private static final long PARK_NANOS = 100;
+
+        @Override
+        public long waitFor(long sequence, Sequence dependency, BooleanSupplier running) {
+            long available;
+            int counter = RETRIES;
+            while ((available = dependency.get()) < sequence) {
+                if (!running.getAsBoolean()) return sequence - 1;
+                if (counter > 100) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else if (counter > 0) {
+                    counter--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+            return available;
+        }
+    }
+
+    /**
+     * Parks on a condition until a publisher signals it; the default, as idle stages cost no CPU
+     * however many connections are open.
+     */
+    final class Blocking implements WaitStrategy {
+        private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition advanced = lock.newCondition();
+        private volatile boolean waiting;
+
+        @Override
+        public long waitFor(long sequence, Sequence dependency, BooleanSupplier running) {
+            long available = dependency.get();
+            if (available >= sequence) return available;
+            lock.lock();
+            try {
+                while ((available = dependency.get()) < sequence) {
+                    if (!running.getAsBoolean()) return sequence - 1;
+                    waiting = true;
+                    // Timed so a missed signal or a halt is noticed without one
+                    advanced.awaitNanos(RECHECK_NANOS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return sequence - 1;
+            } finally {
+                lock.unlock();
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+            // Publishers skip the lock unless a stage has actually gone to sleep
+            if (!waiting) return;
+            lock.lock();
+            try {
+                waiting = false;
+                advanced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,24 +1,50 @@
 package com.traders.exchange.websocket;
 
 import com.traders.common.model.MarketQuotes;
+import com.traders.exchange.domain.InstrumentRegistry;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
+
 @Service
 public class PriceUpdateManager {
     private final SimpMessagingTemplate messagingTemplate;
     private final WebSocketSubscriptionService subscriptionService;
+    private final InstrumentRegistry instrumentRegistry;
 
-    public PriceUpdateManager(SimpMessagingTemplate messagingTemplate, WebSocketSubscriptionService subscriptionService) {
+    public PriceUpdateManager(SimpMessagingTemplate messagingTemplate, WebSocketSubscriptionService subscriptionService,
+                              InstrumentRegistry instrumentRegistry) {
         this.messagingTemplate = messagingTemplate;
         this.subscriptionService = subscriptionService;
+        this.instrumentRegistry = instrumentRegistry;
     }
 
     public void sendPriceUpdate(String instrumentId, MarketQuotes priceUpdate) {
-        subscriptionService.getUserSubscriptions().forEach((sessionId, subscribedInstruments) -> {
-            if (subscribedInstruments.contains(instrumentId) || subscribedInstruments.contains("MASTER")) {
-                messagingTemplate.convertAndSendToUser(sessionId, "/topic/update", priceUpdate);
+        int instrument = instrumentRegistry.indexOf(instrumentId);
+        if (instrument == InstrumentRegistry.UNKNOWN) {
+            // Nobody subscribed by name, so only MASTER sessions can want it
+            subscriptionService.getMasterSessions().forEach(sessionId -> send(sessionId, priceUpdate));
+            return;
+        }
+        sendPriceUpdate(instrument, priceUpdate);
+    }
+
+    /**
+     * Sends the update to the sessions subscribed to the instrument and to MASTER sessions, once each.
+     * @param instrument Instrument index from {@link InstrumentRegistry}
+     */
+    public void sendPriceUpdate(int instrument, MarketQuotes priceUpdate) {
+        Set<String> masterSessions = subscriptionService.getMasterSessions();
+        masterSessions.forEach(sessionId -> send(sessionId, priceUpdate));
+        for (String sessionId : subscriptionService.getSubscribedSessions(instrument)) {
+            if (!masterSessions.contains(sessionId)) {
+                send(sessionId, priceUpdate);
             }
-        });
+        }
+    }
+
+    private void send(String sessionId, MarketQuotes priceUpdate) {
+        messagingTemplate.convertAndSendToUser(sessionId, "/topic/update", priceUpdate);
     }
 }
\ No newline at end of file
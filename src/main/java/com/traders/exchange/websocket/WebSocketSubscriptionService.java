@@ -1,6 +1,8 @@
 package com.traders.exchange.websocket;
 
 import com.traders.common.model.PortfolioSubscriber;
+import com.traders.exchange.domain.InstrumentRegistry;
+import com.traders.exchange.util.IndexedTable;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -9,11 +11,27 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Manages WebSocket subscriptions for users and portfolios.
  * Tracks user subscriptions (sessionId -> items) and portfolio subscriptions (sessionId -> PortfolioSubscriber).
+ * User subscriptions are also indexed the other way round, instrument index -> sessions, so a tick
+ * only visits the sessions that asked for it. Client-supplied names never register instruments:
+ * a name the {@link InstrumentRegistry} does not know yet waits until the feed or a subscription
+ * registers it.
  */
 @Service
 public class WebSocketSubscriptionService {
+    public static final String MASTER = "MASTER";
+
     private final Map<String, Set<String>> userSubscriptions = new ConcurrentHashMap<>();
     private final Map<String, PortfolioSubscriber> portfolioSubscriptions = new ConcurrentHashMap<>();
+    private final IndexedTable<Set<String>> sessionsByInstrument = new IndexedTable<>();
+    private final Set<String> masterSessions = ConcurrentHashMap.newKeySet();
+    // Sessions subscribed to names not yet in the registry, by name
+    private final Map<String, Set<String>> sessionsAwaitingInstrument = new ConcurrentHashMap<>();
+    private final InstrumentRegistry instrumentRegistry;
+
+    public WebSocketSubscriptionService(InstrumentRegistry instrumentRegistry) {
+        this.instrumentRegistry = instrumentRegistry;
+        instrumentRegistry.onRegistered(instrument -> indexAwaiting(instrumentRegistry.instrumentId(instrument), instrument));
+    }
 
     /**
      * Returns an unmodifiable view of all user subscriptions.
@@ -42,6 +60,7 @@ public class WebSocketSubscriptionService {
 
         unsubscribeAll(sessionId); // Clear existing subscriptions
         userSubscriptions.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).addAll(items);
+        items.forEach(item -> indexSession(sessionId, item));
     }
 
     /**
@@ -68,7 +87,10 @@ public class WebSocketSubscriptionService {
 
         Set<String> subscriptions = userSubscriptions.get(sessionId);
         if (subscriptions != null) {
-            items.forEach(subscriptions::remove);
+            items.forEach(item -> {
+                subscriptions.remove(item);
+                unindexSession(sessionId, item);
+            });
             if (subscriptions.isEmpty()) {
                 userSubscriptions.remove(sessionId);
             }
@@ -81,7 +103,7 @@ public class WebSocketSubscriptionService {
      */
     public void unsubscribeAll(String sessionId) {
         Objects.requireNonNull(sessionId, "Session ID cannot be null");
-        userSubscriptions.remove(sessionId);
+        removeUserSubscriptions(sessionId);
     }
 
     /**
@@ -90,7 +112,7 @@ public class WebSocketSubscriptionService {
      */
     public void removeSession(String sessionId) {
         Objects.requireNonNull(sessionId, "Session ID cannot be null");
-        userSubscriptions.remove(sessionId);
+        removeUserSubscriptions(sessionId);
         portfolioSubscriptions.remove(sessionId);
     }
 
@@ -103,4 +125,70 @@ public class WebSocketSubscriptionService {
         Objects.requireNonNull(sessionId, "Session ID cannot be null");
         return Collections.unmodifiableSet(userSubscriptions.getOrDefault(sessionId, Collections.emptySet()));
     }
+
+    /**
+     * Gets the sessions subscribed to an instrument by name, excluding {@value #MASTER} sessions.
+     * @param instrument Instrument index from {@link InstrumentRegistry}
+     * @return Set of session IDs, or empty set if none
+     */
+    public Set<String> getSubscribedSessions(int instrument) {
+        Set<String> sessions = sessionsByInstrument.get(instrument);
+        return sessions == null ? Collections.emptySet() : Collections.unmodifiableSet(sessions);
+    }
+
+    /**
+     * Gets the sessions subscribed to every instrument.
+     * @return Set of session IDs
+     */
+    public Set<String> getMasterSessions() {
+        return Collections.unmodifiableSet(masterSessions);
+    }
+
+    private void removeUserSubscriptions(String sessionId) {
+        Set<String> subscriptions = userSubscriptions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach(item -> unindexSession(sessionId, item));
+        }
+    }
+
+    private void indexSession(String sessionId, String item) {
+        if (MASTER.equals(item)) {
+            masterSessions.add(sessionId);
+            return;
+        }
+        int instrument = instrumentRegistry.indexOf(item);
+        if (instrument != InstrumentRegistry.UNKNOWN) {
+            sessionsByInstrument.computeIfAbsent(instrument, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+            return;
+        }
+        sessionsAwaitingInstrument.computeIfAbsent(item, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        // Registered between the lookup and the wait being recorded
+        instrument = instrumentRegistry.indexOf(item);
+        if (instrument != InstrumentRegistry.UNKNOWN) {
+            indexAwaiting(item, instrument);
+        }
+    }
+
+    private void indexAwaiting(String item, int instrument) {
+        Set<String> sessions = sessionsAwaitingInstrument.remove(item);
+        if (sessions != null) {
+            sessionsByInstrument.computeIfAbsent(instrument, k -> ConcurrentHashMap.newKeySet()).addAll(sessions);
+        }
+    }
+
+    private void unindexSession(String sessionId, String item) {
+        if (MASTER.equals(item)) {
+            masterSessions.remove(sessionId);
+            return;
+        }
+        sessionsAwaitingInstrument.computeIfPresent(item, (k, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        int instrument = instrumentRegistry.indexOf(item);
+        Set<String> sessions = instrument == InstrumentRegistry.UNKNOWN ? null : sessionsByInstrument.get(instrument);
+        if (sessions != null) {
+            sessions.remove(sessionId);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,372 @@
+package com.traders.exchange.infrastructure.dhan;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.traders.exchange.domain.FeedMode;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.MessageHandler;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.ServerEndpointConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.glassfish.tyrus.spi.ServerContainer;
+import org.glassfish.tyrus.spi.ServerContainerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Local stand-in for Dhan's market feed, so the connection pool and feed handlers can be load
+ * tested without the live vendor. Point {@code exchange.dhan.feed-url} at {@link #url()}.
+ * <p>
+ * The simulator accepts the same subscribe and unsubscribe JSON as the live feed and streams
+ * random-walk ticker, quote or full packets, matching each subscription's mode, for every
+ * subscribed instrument at {@code ticksPerSecond}. {@link #disconnect(int, short)} sends the
+ * disconnect packet and closes sessions, to exercise reconnects. Runs on the Tyrus server
+ * container; {@link #main(String[])} starts one from the command line.
+ */
+@Slf4j
+public class DhanFeedSimulator implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8765;
+    public static final int DEFAULT_TICKS_PER_SECOND = 10;
+    // Limits the live feed enforces per connection and per request
+    static final int MAX_INSTRUMENTS_PER_CONNECTION = 5000;
+    static final int DISCONNECT_REQUEST_CODE = 12;
+    private static final Map<String, Integer> SEGMENT_CODES = Map.of(
+            "IDX_I", 0, "NSE_EQ", 1, "NSE_FNO", 2, "NSE_CURRENCY", 3,
+            "BSE_EQ", 4, "MCX_COMM", 5, "BSE_CURRENCY", 7, "BSE_FNO", 8);
+    private static final double PRICE_TICK = 0.05;
+
+    private final int port;
+    private final int ticksPerSecond;
+    private final Set<SimulatedSession> sessions = ConcurrentHashMap.newKeySet();
+    private final LongAdder sentFrames = new LongAdder();
+    private final LongAdder lateRounds = new LongAdder();
+    private ServerContainer server;
+
+    public DhanFeedSimulator(int port, int ticksPerSecond) {
+        this.port = port;
+        this.ticksPerSecond = Math.max(1, ticksPerSecond);
+    }
+
+    public synchronized DhanFeedSimulator start() {
+        if (server != null) return this;
+        Endpoint endpoint = new FeedEndpoint();
+        ServerEndpointConfig endpointConfig = ServerEndpointConfig.Builder.create(FeedEndpoint.class, "/")
+                .configurator(new ServerEndpointConfig.Configurator() {
+                    @Override
+                    public <T> T getEndpointInstance(Class<T> endpointClass) {
+                        return endpointClass.cast(endpoint);
+                    }
+                })
+                .build();
+        try {
+            server = ServerContainerFactory.createServerContainer(null);
+            server.addEndpoint(endpointConfig);
+            server.start("/", port);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to start feed simulator on port " + port + ": " + e.getMessage(), e);
+        }
+        log.info("Feed simulator listening on {} at {} ticks/s per instrument", url(), ticksPerSecond);
+        return this;
+    }
+
+    /**
+     * @return the address to set as {@code exchange.dhan.feed-url}
+     */
+    public String url() {
+        return "ws://localhost:" + port + "/";
+    }
+
+    /**
+     * Sends the disconnect packet with {@code reasonCode} to up to {@code count} sessions, then
+     * closes them.
+     *
+     * @return number of sessions disconnected
+     */
+    public int disconnect(int count, short reasonCode) {
+        int disconnected = 0;
+        for (SimulatedSession session : sessions) {
+            if (disconnected >= count) break;
+            session.disconnect(reasonCode);
+            disconnected++;
+        }
+        log.info("Disconnected {} simulated sessions with code {}", disconnected, reasonCode);
+        return disconnected;
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public int subscriptionCount() {
+        return sessions.stream().mapToInt(session -> session.instruments.size()).sum();
+    }
+
+    public long sentFrames() {
+        return sentFrames.sum();
+    }
+
+    /**
+     * @return streaming rounds that started late because the previous round overran its period,
+     * a sign the simulator or the client is saturated
+     */
+    public long lateRounds() {
+        return lateRounds.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null) return;
+        sessions.forEach(SimulatedSession::stop);
+        server.stop();
+        server = null;
+    }
+
+    /**
+     * Starts a simulator and reads commands from stdin: {@code disconnect [count] [code]},
+     * {@code stats} and {@code quit}.
+     *
+     * @param args optional port and ticks per second per instrument
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TICKS_PER_SECOND;
+        try (DhanFeedSimulator simulator = new DhanFeedSimulator(port, rate).start();
+             BufferedReader input = new BufferedReader(new InputStreamReader(System.in))) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                String[] command = line.trim().split("\\s+");
+                switch (command[0]) {
+                    case "disconnect" -> simulator.disconnect(
+                            command.length > 1 ? Integer.parseInt(command[1]) : Integer.MAX_VALUE,
+                            command.length > 2 ? Short.parseShort(command[2]) : 0);
+                    case "stats" -> log.info("sessions={} subscriptions={} sentFrames={} lateRounds={}",
+                            simulator.sessionCount(), simulator.subscriptionCount(),
+                            simulator.sentFrames(), simulator.lateRounds());
+                    case "quit" -> {
+                        return;
+                    }
+                    case "" -> { }
+                    default -> log.warn("Unknown command: {}", command[0]);
+                }
+            }
+        }
+    }
+
+    // Public because Tyrus invokes the lifecycle methods reflectively
+    public class FeedEndpoint extends Endpoint {
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            SimulatedSession simulated = new SimulatedSession(session);
+            sessions.add(simulated);
+            session.getUserProperties().put(SimulatedSession.class.getName(), simulated);
+            session.addMessageHandler(String.class, (MessageHandler.Whole<String>) simulated::onRequest);
+            simulated.thread = Thread.ofVirtual().name("dhan-simulator-" + session.getId()).start(simulated::stream);
+        }
+
+        @Override
+        public void onClose(Session session, CloseReason closeReason) {
+            SimulatedSession simulated = (SimulatedSession) session.getUserProperties()
+                    .get(SimulatedSession.class.getName());
+            if (simulated != null) {
+                sessions.remove(simulated);
+                simulated.stop();
+            }
+        }
+
+        @Override
+        public void onError(Session session, Throwable error) {
+            log.warn("Simulated session {} failed: {}", session.getId(), error.getMessage());
+        }
+    }
+
+    private static final class SimulatedInstrument {
+        private final int segmentCode;
+        private final int securityId;
+        private volatile FeedMode mode;
+        private final DhanQuoteSlot slot = new DhanQuoteSlot();
+
+        private SimulatedInstrument(int segmentCode, int securityId, FeedMode mode, SplittableRandom random) {
+            this.segmentCode = segmentCode;
+            this.securityId = securityId;
+            this.mode = mode;
+            slot.exchangeSegment = segmentCode;
+            slot.securityId = securityId;
+            slot.lastTradedPrice = 100 + random.nextInt(4900);
+            slot.open = slot.lastTradedPrice;
+            slot.close = slot.lastTradedPrice;
+            slot.high = slot.lastTradedPrice;
+            slot.low = slot.lastTradedPrice;
+            slot.averageTradePrice = slot.lastTradedPrice;
+        }
+
+        // Random walk in whole price ticks, with depth stacked a tick apart around the last price
+        private void advance(SplittableRandom random) {
+            double price = Math.max(PRICE_TICK, slot.lastTradedPrice + (random.nextInt(5) - 2) * PRICE_TICK);
+            int quantity = 1 + random.nextInt(500);
+            slot.lastTradedPrice = price;
+            slot.lastTradedQuantity = quantity;
+            slot.lastTradeTime = (int) (System.currentTimeMillis() / 1000);
+            slot.averageTradePrice = (slot.averageTradePrice * 0.99) + (price * 0.01);
+            slot.volume += quantity;
+            slot.high = Math.max(slot.high, price);
+            slot.low = Math.min(slot.low, price);
+            slot.totalBuyQuantity = 1000 + random.nextInt(100_000);
+            slot.totalSellQuantity = 1000 + random.nextInt(100_000);
+            for (int level = 0; level < DhanFeedFrame.DEPTH_LEVELS; level++) {
+                slot.bidPrice[level] = price - PRICE_TICK * (level + 1);
+                slot.askPrice[level] = price + PRICE_TICK * (level + 1);
+                slot.bidQuantity[level] = 1 + random.nextInt(1000);
+                slot.askQuantity[level] = 1 + random.nextInt(1000);
+                slot.bidOrders[level] = 1 + random.nextInt(20);
+                slot.askOrders[level] = 1 + random.nextInt(20);
+            }
+        }
+
+        private int encode(ByteBuffer target) {
+            return switch (mode) {
+                case TICKER -> DhanFeedFrame.encodeTicker(slot, target);
+                case QUOTE -> DhanFeedFrame.encodeQuote(slot, target);
+                case FULL -> DhanFeedFrame.encodeFull(slot, target);
+            };
+        }
+    }
+
+    private final class SimulatedSession {
+        private final Session session;
+        private final Map<Long, SimulatedInstrument> instruments = new ConcurrentHashMap<>();
+        private final ByteBuffer packet = ByteBuffer.allocate(DhanFeedFrame.FULL_PACKET_LENGTH)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        private final SplittableRandom random = new SplittableRandom();
+        private volatile boolean running = true;
+        private Thread thread;
+
+        private SimulatedSession(Session session) {
+            this.session = session;
+        }
+
+        private void onRequest(String request) {
+            JsonObject json;
+            int requestCode;
+            try {
+                json = JsonParser.parseString(request).getAsJsonObject();
+                requestCode = json.get("RequestCode").getAsInt();
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed request on simulated session {}: {}", session.getId(), request);
+                return;
+            }
+            if (requestCode == DISCONNECT_REQUEST_CODE) {
+                disconnect((short) 0);
+                return;
+            }
+            FeedMode mode = modeOf(requestCode);
+            if (mode == null) {
+                log.warn("Ignoring unknown request code {} on simulated session {}", requestCode, session.getId());
+                return;
+            }
+            boolean subscribe = requestCode == DhanConnectionPool.subscribeRequestCode(mode);
+            JsonArray list = json.has("InstrumentList") ? json.getAsJsonArray("InstrumentList") : new JsonArray();
+            if (list.size() > DhanSubscriptionCoalescer.MAX_INSTRUMENTS_PER_MESSAGE) {
+                log.warn("Request on simulated session {} lists {} instruments, the feed allows {}",
+                        session.getId(), list.size(), DhanSubscriptionCoalescer.MAX_INSTRUMENTS_PER_MESSAGE);
+            }
+            for (JsonElement element : list) {
+                JsonObject instrument = element.getAsJsonObject();
+                Integer segmentCode = SEGMENT_CODES.get(instrument.get("ExchangeSegment").getAsString());
+                int securityId = Integer.parseInt(instrument.get("SecurityId").getAsString());
+                if (segmentCode == null) {
+                    log.warn("Unknown exchange segment {} on simulated session {}", instrument.get("ExchangeSegment"),
+                            session.getId());
+                    continue;
+                }
+                long key = ((long) segmentCode << 32) | (securityId & 0xFFFFFFFFL);
+                if (!subscribe) {
+                    instruments.remove(key);
+                } else if (instruments.containsKey(key)) {
+                    instruments.get(key).mode = mode;
+                } else if (instruments.size() < MAX_INSTRUMENTS_PER_CONNECTION) {
+                    instruments.put(key, new SimulatedInstrument(segmentCode, securityId, mode, random));
+                } else {
+                    log.warn("Simulated session {} is at the {} instrument limit", session.getId(),
+                            MAX_INSTRUMENTS_PER_CONNECTION);
+                }
+            }
+        }
+
+        // One round sends a packet for every subscribed instrument; rounds run at ticksPerSecond
+        private void stream() {
+            long period = 1_000_000_000L / ticksPerSecond;
+            long nextRound = System.nanoTime();
+            while (running && session.isOpen()) {
+                for (SimulatedInstrument instrument : instruments.values()) {
+                    instrument.advance(random);
+                    if (!send(instrument)) return;
+                }
+                nextRound += period;
+                long wait = nextRound - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    lateRounds.increment();
+                    nextRound = System.nanoTime();
+                }
+            }
+        }
+
+        private boolean send(SimulatedInstrument instrument) {
+            try {
+                synchronized (session) {
+                    // Encoding writes by absolute index, so the limit has to be lifted first
+                    packet.clear();
+                    packet.limit(instrument.encode(packet));
+                    session.getBasicRemote().sendBinary(packet);
+                }
+                sentFrames.increment();
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Simulated session {} stopped streaming: {}", session.getId(), e.getMessage());
+                return false;
+            }
+        }
+
+        private void disconnect(short reasonCode) {
+            stop();
+            try {
+                synchronized (session) {
+                    packet.clear();
+                    packet.limit(DhanFeedFrame.encodeDisconnect(reasonCode, packet));
+                    session.getBasicRemote().sendBinary(packet);
+                }
+                session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Disconnect " + reasonCode));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Failed to disconnect simulated session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        private void stop() {
+            running = false;
+            if (thread != null) LockSupport.unpark(thread);
+        }
+
+        private static FeedMode modeOf(int requestCode) {
+            for (FeedMode mode : FeedMode.values()) {
+                if (requestCode == DhanConnectionPool.subscribeRequestCode(mode)
+                        || requestCode == DhanConnectionPool.unsubscribeRequestCode(mode)) return mode;
+            }
+            return null;
+        }
+    }
+}